@@ -6,7 +6,16 @@ import io.netty.util.internal.PlatformDependent
 import org.cloudburstmc.protocol.bedrock.BedrockClientSession
 import org.cloudburstmc.protocol.bedrock.BedrockPeer
 import org.cloudburstmc.protocol.bedrock.BedrockServerSession
+import org.cloudburstmc.protocol.bedrock.FlushPolicy
+import org.cloudburstmc.protocol.bedrock.LatencyFlushPolicy
+import org.cloudburstmc.protocol.bedrock.codec.PacketPool
+import org.cloudburstmc.protocol.bedrock.BedrockSession
+import org.cloudburstmc.protocol.bedrock.data.PacketCompressionAlgorithm
+import org.cloudburstmc.protocol.bedrock.netty.BedrockBatchWrapper
 import org.cloudburstmc.protocol.bedrock.netty.BedrockPacketWrapper
+import org.cloudburstmc.protocol.bedrock.netty.codec.compression.AdaptiveCompressionStrategy
+import org.cloudburstmc.protocol.bedrock.netty.codec.compression.CompressionOffloadHandler
+import org.cloudburstmc.protocol.bedrock.netty.codec.packet.PacketDecodeFilter
 import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket
 import org.cloudburstmc.protocol.bedrock.packet.UnknownPacket
 import java.util.Queue
@@ -15,11 +24,83 @@ class LuminaRelaySession(peer: BedrockPeer, subClientId: Int, val luminaRelay: L
     val server = ServerSession(peer, subClientId)
     val listeners: MutableList<LuminaRelayPacketListener> = ArrayList()
     private val packetQueue: Queue<Pair<BedrockPacket, Boolean>> = PlatformDependent.newMpscQueue()
+    private val decodeFilter = PacketDecodeFilter { _, packetClass ->
+        packetClass == null || listeners.any { it.isInterested(packetClass) }
+    }
+
+    /**
+     * When enabled, packet bodies are only deserialized if a listener is interested in them,
+     * everything else is forwarded from the raw buffer. A listener without declared
+     * [LuminaRelayPacketListener.interestedPackets] wants every packet, so this has no effect
+     * until all registered listeners declare their interest.
+     */
+    var lazyDecoding: Boolean = false
+        set(value) {
+            field = value
+            val filter = if (value) decodeFilter else PacketDecodeFilter.ALL
+            server.peer.setDecodeFilter(filter)
+            client?.peer?.setDecodeFilter(filter)
+        }
+
+    /**
+     * When enabled, inbound batches whose packets are all relayed untouched are forwarded
+     * with their original compressed payload instead of being split up and recompressed.
+     */
+    var batchForwarding: Boolean = false
+        set(value) {
+            field = value
+            server.peer.setBatchForwarding(value)
+            client?.peer?.setBatchForwarding(value)
+        }
+
+    /**
+     * When enabled, frequent packet types are decoded into pooled instances that are reused once
+     * listeners return. Listeners that keep a packet must call [BedrockSession.keepPacket].
+     */
+    var packetPooling: Boolean = false
+        set(value) {
+            field = value
+            val pool = if (value) PacketPool.DEFAULT else null
+            server.peer.setPacketPool(pool)
+            client?.peer?.setPacketPool(pool)
+        }
+
+    /**
+     * When enabled, zlib connections use an [AdaptiveCompressionStrategy] that skips or lightens
+     * compression for small and latency sensitive batches.
+     */
+    var adaptiveCompression: Boolean = true
+
+    /**
+     * Batches of at least this many uncompressed bytes are compressed off the event loop,
+     * see [CompressionOffloadHandler]. A negative value keeps all compression inline.
+     * Applied when compression is enabled on a session.
+     */
+    var compressionOffloadThreshold: Int = -1
+
+    /**
+     * Decides when relayed packets are written. The default flushes movement and latency
+     * packets right away instead of waiting for the next 50ms tick.
+     */
+    var flushPolicy: FlushPolicy = LatencyFlushPolicy.DEFAULT
+        set(value) {
+            field = value
+            server.peer.flushPolicy = value
+            client?.peer?.flushPolicy = value
+        }
+
+    init {
+        server.peer.flushPolicy = flushPolicy
+    }
 
     var client: ClientSession? = null
         internal set(value) {
             value?.apply {
                 codec = server.codec
+                if (lazyDecoding) peer.setDecodeFilter(decodeFilter)
+                if (batchForwarding) peer.setBatchForwarding(true)
+                if (packetPooling) peer.setPacketPool(PacketPool.DEFAULT)
+                peer.flushPolicy = flushPolicy
                 peer.codecHelper.apply {
                     blockDefinitions = server.peer.codecHelper.blockDefinitions
                     itemDefinitions = server.peer.codecHelper.itemDefinitions
@@ -34,15 +115,39 @@ class LuminaRelaySession(peer: BedrockPeer, subClientId: Int, val luminaRelay: L
             field = value
         }
 
-    fun clientBound(packet: BedrockPacket) = server.sendPacket(packet)
+    fun clientBound(packet: BedrockPacket) {
+        client?.forwarder?.interrupt()
+        relayClientBound(packet)
+    }
+
     fun clientBoundImmediately(packet: BedrockPacket) = server.sendPacketImmediately(packet)
 
-    fun serverBound(packet: BedrockPacket) =
-        client?.sendPacket(packet) ?: packetQueue.add(packet to false)
+    fun serverBound(packet: BedrockPacket) {
+        server.forwarder.interrupt()
+        relayServerBound(packet)
+    }
 
     fun serverBoundImmediately(packet: BedrockPacket) =
         client?.sendPacketImmediately(packet) ?: packetQueue.add(packet to true)
 
+    fun setCompression(session: BedrockSession, algorithm: PacketCompressionAlgorithm) {
+        if (adaptiveCompression && algorithm == PacketCompressionAlgorithm.ZLIB) {
+            val peer = session.peer
+            peer.setCompression(AdaptiveCompressionStrategy(peer.rakVersion >= 10, peer.isCompressionPrefixed))
+        } else {
+            session.setCompression(algorithm)
+        }
+        if (compressionOffloadThreshold >= 0) {
+            session.peer.setCompressionOffload(CompressionOffloadHandler.defaultExecutor(), compressionOffloadThreshold)
+        }
+    }
+
+    private fun relayClientBound(packet: BedrockPacket) = server.sendPacket(packet)
+
+    private fun relayServerBound(packet: BedrockPacket) {
+        client?.sendPacket(packet) ?: packetQueue.add(packet to false)
+    }
+
     private fun createDisconnectHandler(isServer: Boolean) = SessionCloseHandler { reason ->
         runCatching {
             (if (isServer) server else client)?.disconnect()
@@ -51,48 +156,161 @@ class LuminaRelaySession(peer: BedrockPeer, subClientId: Int, val luminaRelay: L
     }
 
     private fun processPacket(wrapper: BedrockPacketWrapper,
+                              forwarder: BatchForwarder,
                               beforeFunc: (LuminaRelayPacketListener) -> Boolean,
-                              sendFunc: (BedrockPacket) -> Unit,
                               afterFunc: (LuminaRelayPacketListener) -> Unit) {
-        listeners.forEach {
-            runCatching { if (beforeFunc(it)) return }
+        forwarder.begin()
+        val decoded = wrapper.packet != null
+        if (decoded) {
+            listeners.forEach {
+                runCatching {
+                    if (beforeFunc(it)) {
+                        forwarder.interrupt()
+                        return
+                    }
+                }
+            }
         }
 
-        runCatching {
-            UnknownPacket().apply {
-                payload = wrapper.packetBuffer.retainedSlice().skipBytes(wrapper.headerLength)
-                packetId = wrapper.packetId
-            }.let(sendFunc)
-        }.onFailure {
-            if (it is NoClassDefFoundError && it.message?.contains("java/awt/Color") == true) {
+        if (!forwarder.relay(wrapper)) {
+            return
+        }
+
+        if (decoded) {
+            listeners.forEach {
+                runCatching { afterFunc(it) }
+            }
+        }
+    }
+
+    /**
+     * Collects the packets of the batch currently being read from [source]. If the whole batch is
+     * relayed untouched, its compressed payload is handed to the opposite peer as-is, otherwise the
+     * packets fall back to being sent one by one.
+     */
+    internal inner class BatchForwarder(
+        private val source: BedrockSession,
+        private val sendFunc: (BedrockPacket) -> Unit,
+        private val target: () -> BedrockSession?
+    ) {
+        private val pending = ArrayList<BedrockPacketWrapper>()
+        private var started = false
+        private var intact = false
+
+        fun relay(wrapper: BedrockPacketWrapper): Boolean {
+            if (intact) {
+                pending.add(wrapper.retain())
+                return true
+            }
+            flushPending()
+            return sendRaw(wrapper)
+        }
+
+        /**
+         * Falls back to per-packet relaying for the rest of the current batch. Packets already
+         * collected are sent first so that anything sent afterwards keeps its order.
+         */
+        fun interrupt() {
+            if (!source.peer.channel.eventLoop().inEventLoop()) {
+                return
+            }
+            intact = false
+            flushPending()
+        }
+
+        fun complete(batch: BedrockBatchWrapper) {
+            val target = target()
+            if (intact && pending.isNotEmpty() && target != null && target.peer.canForwardBatch(source.peer, batch)) {
+                pending.forEach { it.release() }
+                pending.clear()
+                target.peer.sendBatch(batch.retain())
+            } else {
+                flushPending()
+            }
+            started = false
+        }
+
+        /**
+         * Samples [batchForwarding] once when the first packet of a batch arrives, so toggling the
+         * option mid-batch never forwards a batch whose earlier packets were already sent.
+         */
+        fun begin() {
+            if (!started) {
+                started = true
+                intact = batchForwarding
+            }
+        }
+
+        private fun flushPending() {
+            if (pending.isEmpty()) {
                 return
             }
+            pending.forEach {
+                try {
+                    sendRaw(it)
+                } finally {
+                    it.release()
+                }
+            }
+            pending.clear()
         }
 
-        listeners.forEach {
-            runCatching { afterFunc(it) }
+        private fun sendRaw(wrapper: BedrockPacketWrapper): Boolean {
+            runCatching {
+                UnknownPacket().apply {
+                    payload = wrapper.packetBuffer.retainedSlice().skipBytes(wrapper.headerLength)
+                    packetId = wrapper.packetId
+                }.let(sendFunc)
+            }.onFailure {
+                if (it is NoClassDefFoundError && it.message?.contains("java/awt/Color") == true) {
+                    return false
+                }
+            }
+            return true
         }
     }
 
     inner class ServerSession(peer: BedrockPeer, subClientId: Int) : BedrockServerSession(peer, subClientId) {
+        internal val forwarder = BatchForwarder(this, ::relayServerBound) { client }
+
         init { packetHandler = createDisconnectHandler(false) }
 
-        override fun onPacket(wrapper: BedrockPacketWrapper) = processPacket(
-            wrapper,
-            { it.beforeClientBound(wrapper.packet) },
-            ::serverBound,
-            { it.afterClientBound(wrapper.packet) }
-        )
+        override fun onPacket(wrapper: BedrockPacketWrapper) {
+            val previous = beginHandling(wrapper)
+            try {
+                processPacket(
+                    wrapper,
+                    forwarder,
+                    { it.beforeClientBound(wrapper.packet) },
+                    { it.afterClientBound(wrapper.packet) }
+                )
+            } finally {
+                endHandling(previous)
+            }
+        }
+
+        override fun onBatch(batch: BedrockBatchWrapper) = forwarder.complete(batch)
     }
 
     inner class ClientSession(peer: BedrockPeer, subClientId: Int) : BedrockClientSession(peer, subClientId) {
+        internal val forwarder = BatchForwarder(this, ::relayClientBound) { server }
+
         init { packetHandler = createDisconnectHandler(true) }
 
-        override fun onPacket(wrapper: BedrockPacketWrapper) = processPacket(
-            wrapper,
-            { it.beforeServerBound(wrapper.packet) },
-            ::clientBound,
-            { it.afterServerBound(wrapper.packet) }
-        )
+        override fun onPacket(wrapper: BedrockPacketWrapper) {
+            val previous = beginHandling(wrapper)
+            try {
+                processPacket(
+                    wrapper,
+                    forwarder,
+                    { it.beforeServerBound(wrapper.packet) },
+                    { it.afterServerBound(wrapper.packet) }
+                )
+            } finally {
+                endHandling(previous)
+            }
+        }
+
+        override fun onBatch(batch: BedrockBatchWrapper) = forwarder.complete(batch)
     }
-}
\ No newline at end of file
+}
@@ -24,6 +24,9 @@ class AutoCodecPacketListener(
         @JvmStatic external fun pickProtocolCodec(protocolVersion: Int): BedrockCodec
     }
 
+    override val interestedPackets: Set<Class<out BedrockPacket>> =
+        setOf(RequestNetworkSettingsPacket::class.java)
+
     private fun patchCodecIfNeeded(codec: BedrockCodec): BedrockCodec {
         return if (patchCodec && codec.protocolVersion > 729) {
             codec.toBuilder()
@@ -59,7 +62,7 @@ class AutoCodecPacketListener(
             networkSettingsPacket.compressionAlgorithm = PacketCompressionAlgorithm.ZLIB
 
             luminaRelaySession.clientBoundImmediately(networkSettingsPacket)
-            luminaRelaySession.server.setCompression(PacketCompressionAlgorithm.ZLIB)
+            luminaRelaySession.setCompression(luminaRelaySession.server, PacketCompressionAlgorithm.ZLIB)
             return true
         }
         return false
@@ -9,6 +9,9 @@ class BiomeDefinitionListPacketListener(
     val luminaRelaySession: LuminaRelaySession
 ) : LuminaRelayPacketListener {
 
+    override val interestedPackets: Set<Class<out BedrockPacket>> =
+        setOf(BiomeDefinitionListPacket::class.java)
+
     companion object {
         private const val TAG = "BiomeDefinitionListPacketListener"
         private var awtErrorDetected = false
@@ -18,6 +18,12 @@ open class EncryptedLoginPacketListener : LuminaRelayPacketListener {
     protected var loginPacket: LoginPacket? = null
     lateinit var luminaRelaySession: LuminaRelaySession
 
+    override val interestedPackets: Set<Class<out BedrockPacket>> = setOf(
+        LoginPacket::class.java,
+        NetworkSettingsPacket::class.java,
+        ServerToClientHandshakePacket::class.java
+    )
+
     override fun beforeClientBound(packet: BedrockPacket): Boolean {
         if (packet is LoginPacket) {
             try {
@@ -49,7 +55,7 @@ open class EncryptedLoginPacketListener : LuminaRelayPacketListener {
             is NetworkSettingsPacket -> {
                 val threshold = packet.compressionThreshold
                 if (threshold > 0) {
-                    luminaRelaySession.client!!.setCompression(packet.compressionAlgorithm)
+                    luminaRelaySession.setCompression(luminaRelaySession.client!!, packet.compressionAlgorithm)
                 } else {
                     luminaRelaySession.client!!.setCompression(PacketCompressionAlgorithm.NONE)
                 }
@@ -15,6 +15,9 @@ class GamingPacketHandler(
     val luminaRelaySession: LuminaRelaySession
 ) : LuminaRelayPacketListener {
 
+    override val interestedPackets: Set<Class<out BedrockPacket>> =
+        setOf(StartGamePacket::class.java, CameraPresetsPacket::class.java)
+
     override fun beforeServerBound(packet: BedrockPacket): Boolean {
         if (packet is StartGamePacket) {
             Definitions.itemDefinitions = SimpleDefinitionRegistry.builder<ItemDefinition>()
@@ -4,6 +4,18 @@ import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket
 
 interface LuminaRelayPacketListener {
 
+    /**
+     * Packet types this listener handles, or null to receive every packet.
+     * Packets no listener is interested in are relayed without being decoded
+     * when [com.project.lumina.relay.LuminaRelaySession.lazyDecoding] is enabled.
+     */
+    val interestedPackets: Set<Class<out BedrockPacket>>?
+        get() = null
+
+    fun isInterested(packetClass: Class<out BedrockPacket>): Boolean {
+        return interestedPackets?.contains(packetClass) ?: true
+    }
+
     fun beforeClientBound(packet: BedrockPacket): Boolean {
         return false
     }
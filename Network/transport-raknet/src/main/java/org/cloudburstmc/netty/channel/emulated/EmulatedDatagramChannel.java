@@ -0,0 +1,323 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.channel.emulated;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.nio.channels.NotYetConnectedException;
+import java.util.Objects;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.AddressedEnvelope;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramChannelConfig;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.internal.StringUtil;
+
+/**
+ * Datagram channel of an {@link EmulatedNetwork}. It behaves like an unconnected UDP socket that is bound on connect
+ * if needed, but never touches the operating system and can be registered with any event loop.
+ * <p>
+ * Received datagrams are passed to the pipeline as soon as the network delivers them, auto read is not honoured.
+ * Multicast is not supported.
+ */
+public class EmulatedDatagramChannel extends AbstractChannel implements DatagramChannel {
+
+    private static final ChannelMetadata METADATA = new ChannelMetadata(true);
+
+    private final EmulatedNetwork network;
+    private final EmulatedDatagramChannelConfig config;
+    private volatile boolean open = true;
+    private volatile InetSocketAddress localAddress;
+    private volatile InetSocketAddress remoteAddress;
+
+    // Time the sending link finishes the last queued datagram, only used from the event loop
+    long linkFreeAt;
+
+    public EmulatedDatagramChannel(EmulatedNetwork network) {
+        super(null);
+        this.network = Objects.requireNonNull(network, "network");
+        this.config = new EmulatedDatagramChannelConfig(this);
+    }
+
+    @Override
+    public DatagramChannelConfig config() {
+        return this.config;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return this.open;
+    }
+
+    @Override
+    public boolean isActive() {
+        return this.open && this.localAddress != null;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return this.remoteAddress != null;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return (InetSocketAddress) super.remoteAddress();
+    }
+
+    @Override
+    protected AbstractUnsafe newUnsafe() {
+        return new EmulatedUnsafe();
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return true;
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return this.localAddress;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return this.remoteAddress;
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        if (this.localAddress != null) {
+            throw new IllegalStateException("Channel is already bound to " + this.localAddress);
+        }
+        this.localAddress = this.network.bind(this, (InetSocketAddress) localAddress);
+    }
+
+    @Override
+    protected void doDisconnect() {
+        this.remoteAddress = null;
+    }
+
+    @Override
+    protected void doClose() {
+        this.open = false;
+        this.remoteAddress = null;
+        InetSocketAddress localAddress = this.localAddress;
+        if (localAddress != null) {
+            this.network.unbind(this, localAddress);
+        }
+    }
+
+    @Override
+    protected void doBeginRead() {
+        // Datagrams are delivered by the network
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof DatagramPacket || msg instanceof ByteBuf) {
+            return msg;
+        }
+        if (msg instanceof AddressedEnvelope && ((AddressedEnvelope<?, ?>) msg).content() instanceof ByteBuf) {
+            return msg;
+        }
+        throw new UnsupportedOperationException("unsupported message type: " + StringUtil.simpleClassName(msg));
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        if (this.localAddress == null) {
+            this.doBind(null);
+        }
+        InetSocketAddress sender = this.senderAddress();
+
+        Object msg;
+        while ((msg = in.current()) != null) {
+            ByteBuf content;
+            SocketAddress recipient;
+            if (msg instanceof AddressedEnvelope) {
+                AddressedEnvelope<?, ?> envelope = (AddressedEnvelope<?, ?>) msg;
+                content = (ByteBuf) envelope.content();
+                recipient = envelope.recipient();
+            } else {
+                content = (ByteBuf) msg;
+                recipient = this.remoteAddress;
+            }
+
+            if (recipient == null) {
+                in.remove(new NotYetConnectedException());
+                continue;
+            }
+
+            this.network.send(this, sender, content, (InetSocketAddress) recipient);
+            in.remove();
+        }
+    }
+
+    /**
+     * Datagrams are delivered to an address peers can reply to, so a wildcard bind shows up as loopback.
+     */
+    private InetSocketAddress senderAddress() {
+        InetSocketAddress localAddress = this.localAddress;
+        if (localAddress.getAddress().isAnyLocalAddress()) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), localAddress.getPort());
+        }
+        return localAddress;
+    }
+
+    /**
+     * Called on the event loop by the network.
+     *
+     * @return false if the channel was not active and the packet got released
+     */
+    boolean receive(DatagramPacket packet) {
+        if (!this.isActive()) {
+            packet.release();
+            return false;
+        }
+        this.pipeline().fireChannelRead(packet);
+        this.pipeline().fireChannelReadComplete();
+        return true;
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress) {
+        return this.joinGroup(multicastAddress, this.newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress, ChannelPromise future) {
+        return unsupported(future);
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return this.joinGroup(multicastAddress, networkInterface, this.newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetSocketAddress multicastAddress, NetworkInterface networkInterface, ChannelPromise future) {
+        return unsupported(future);
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return this.joinGroup(multicastAddress, networkInterface, source, this.newPromise());
+    }
+
+    @Override
+    public ChannelFuture joinGroup(InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source, ChannelPromise future) {
+        return unsupported(future);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress) {
+        return this.leaveGroup(multicastAddress, this.newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress, ChannelPromise future) {
+        return unsupported(future);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetSocketAddress multicastAddress, NetworkInterface networkInterface) {
+        return this.leaveGroup(multicastAddress, networkInterface, this.newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetSocketAddress multicastAddress, NetworkInterface networkInterface, ChannelPromise future) {
+        return unsupported(future);
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source) {
+        return this.leaveGroup(multicastAddress, networkInterface, source, this.newPromise());
+    }
+
+    @Override
+    public ChannelFuture leaveGroup(InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress source, ChannelPromise future) {
+        return unsupported(future);
+    }
+
+    @Override
+    public ChannelFuture block(InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress sourceToBlock) {
+        return this.block(multicastAddress, networkInterface, sourceToBlock, this.newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(InetAddress multicastAddress, NetworkInterface networkInterface, InetAddress sourceToBlock, ChannelPromise future) {
+        return unsupported(future);
+    }
+
+    @Override
+    public ChannelFuture block(InetAddress multicastAddress, InetAddress sourceToBlock) {
+        return this.block(multicastAddress, sourceToBlock, this.newPromise());
+    }
+
+    @Override
+    public ChannelFuture block(InetAddress multicastAddress, InetAddress sourceToBlock, ChannelPromise future) {
+        return unsupported(future);
+    }
+
+    private static ChannelFuture unsupported(ChannelPromise promise) {
+        return promise.setFailure(new UnsupportedOperationException("Multicast is not supported by the emulated network"));
+    }
+
+    private class EmulatedUnsafe extends AbstractUnsafe {
+
+        @Override
+        public void connect(SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) {
+            if (!promise.setUncancellable() || !this.ensureOpen(promise)) {
+                return;
+            }
+
+            try {
+                boolean wasActive = isActive();
+                if (EmulatedDatagramChannel.this.localAddress == null) {
+                    doBind(localAddress);
+                }
+                EmulatedDatagramChannel.this.remoteAddress = (InetSocketAddress) remoteAddress;
+                this.safeSetSuccess(promise);
+                if (!wasActive && isActive()) {
+                    pipeline().fireChannelActive();
+                }
+            } catch (Throwable t) {
+                this.safeSetFailure(promise, t);
+                this.closeIfClosed();
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.channel.emulated;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.util.Map;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.MessageSizeEstimator;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.socket.DatagramChannelConfig;
+
+/**
+ * Config of an {@link EmulatedDatagramChannel}. Socket options are stored so bootstraps written for real sockets
+ * keep working, but they have no effect on the emulated network.
+ */
+public class EmulatedDatagramChannelConfig extends DefaultChannelConfig implements DatagramChannelConfig {
+
+    private volatile int sendBufferSize = 64 * 1024;
+    private volatile int receiveBufferSize = 64 * 1024;
+    private volatile int trafficClass;
+    private volatile boolean reuseAddress;
+    private volatile boolean broadcast;
+    private volatile boolean loopbackModeDisabled;
+    private volatile int timeToLive = 64;
+    private volatile InetAddress interfaceAddress;
+    private volatile NetworkInterface networkInterface;
+
+    public EmulatedDatagramChannelConfig(EmulatedDatagramChannel channel) {
+        super(channel);
+    }
+
+    @Override
+    public Map<ChannelOption<?>, Object> getOptions() {
+        return getOptions(
+                super.getOptions(),
+                ChannelOption.SO_SNDBUF, ChannelOption.SO_RCVBUF, ChannelOption.IP_TOS, ChannelOption.SO_REUSEADDR,
+                ChannelOption.SO_BROADCAST, ChannelOption.IP_MULTICAST_LOOP_DISABLED, ChannelOption.IP_MULTICAST_TTL,
+                ChannelOption.IP_MULTICAST_ADDR, ChannelOption.IP_MULTICAST_IF);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T getOption(ChannelOption<T> option) {
+        if (option == ChannelOption.SO_SNDBUF) {
+            return (T) Integer.valueOf(this.getSendBufferSize());
+        } else if (option == ChannelOption.SO_RCVBUF) {
+            return (T) Integer.valueOf(this.getReceiveBufferSize());
+        } else if (option == ChannelOption.IP_TOS) {
+            return (T) Integer.valueOf(this.getTrafficClass());
+        } else if (option == ChannelOption.SO_REUSEADDR) {
+            return (T) Boolean.valueOf(this.isReuseAddress());
+        } else if (option == ChannelOption.SO_BROADCAST) {
+            return (T) Boolean.valueOf(this.isBroadcast());
+        } else if (option == ChannelOption.IP_MULTICAST_LOOP_DISABLED) {
+            return (T) Boolean.valueOf(this.isLoopbackModeDisabled());
+        } else if (option == ChannelOption.IP_MULTICAST_TTL) {
+            return (T) Integer.valueOf(this.getTimeToLive());
+        } else if (option == ChannelOption.IP_MULTICAST_ADDR) {
+            return (T) this.getInterface();
+        } else if (option == ChannelOption.IP_MULTICAST_IF) {
+            return (T) this.getNetworkInterface();
+        }
+        return super.getOption(option);
+    }
+
+    @Override
+    public <T> boolean setOption(ChannelOption<T> option, T value) {
+        this.validate(option, value);
+
+        if (option == ChannelOption.SO_SNDBUF) {
+            this.setSendBufferSize((Integer) value);
+        } else if (option == ChannelOption.SO_RCVBUF) {
+            this.setReceiveBufferSize((Integer) value);
+        } else if (option == ChannelOption.IP_TOS) {
+            this.setTrafficClass((Integer) value);
+        } else if (option == ChannelOption.SO_REUSEADDR) {
+            this.setReuseAddress((Boolean) value);
+        } else if (option == ChannelOption.SO_BROADCAST) {
+            this.setBroadcast((Boolean) value);
+        } else if (option == ChannelOption.IP_MULTICAST_LOOP_DISABLED) {
+            this.setLoopbackModeDisabled((Boolean) value);
+        } else if (option == ChannelOption.IP_MULTICAST_TTL) {
+            this.setTimeToLive((Integer) value);
+        } else if (option == ChannelOption.IP_MULTICAST_ADDR) {
+            this.setInterface((InetAddress) value);
+        } else if (option == ChannelOption.IP_MULTICAST_IF) {
+            this.setNetworkInterface((NetworkInterface) value);
+        } else {
+            return super.setOption(option, value);
+        }
+        return true;
+    }
+
+    @Override
+    public int getSendBufferSize() {
+        return this.sendBufferSize;
+    }
+
+    @Override
+    public DatagramChannelConfig setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+        return this;
+    }
+
+    @Override
+    public int getReceiveBufferSize() {
+        return this.receiveBufferSize;
+    }
+
+    @Override
+    public DatagramChannelConfig setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+        return this;
+    }
+
+    @Override
+    public int getTrafficClass() {
+        return this.trafficClass;
+    }
+
+    @Override
+    public DatagramChannelConfig setTrafficClass(int trafficClass) {
+        this.trafficClass = trafficClass;
+        return this;
+    }
+
+    @Override
+    public boolean isReuseAddress() {
+        return this.reuseAddress;
+    }
+
+    @Override
+    public DatagramChannelConfig setReuseAddress(boolean reuseAddress) {
+        this.reuseAddress = reuseAddress;
+        return this;
+    }
+
+    @Override
+    public boolean isBroadcast() {
+        return this.broadcast;
+    }
+
+    @Override
+    public DatagramChannelConfig setBroadcast(boolean broadcast) {
+        this.broadcast = broadcast;
+        return this;
+    }
+
+    @Override
+    public boolean isLoopbackModeDisabled() {
+        return this.loopbackModeDisabled;
+    }
+
+    @Override
+    public DatagramChannelConfig setLoopbackModeDisabled(boolean loopbackModeDisabled) {
+        this.loopbackModeDisabled = loopbackModeDisabled;
+        return this;
+    }
+
+    @Override
+    public int getTimeToLive() {
+        return this.timeToLive;
+    }
+
+    @Override
+    public DatagramChannelConfig setTimeToLive(int ttl) {
+        this.timeToLive = ttl;
+        return this;
+    }
+
+    @Override
+    public InetAddress getInterface() {
+        return this.interfaceAddress;
+    }
+
+    @Override
+    public DatagramChannelConfig setInterface(InetAddress interfaceAddress) {
+        this.interfaceAddress = interfaceAddress;
+        return this;
+    }
+
+    @Override
+    public NetworkInterface getNetworkInterface() {
+        return this.networkInterface;
+    }
+
+    @Override
+    public DatagramChannelConfig setNetworkInterface(NetworkInterface networkInterface) {
+        this.networkInterface = networkInterface;
+        return this;
+    }
+
+    @Override
+    @Deprecated
+    public DatagramChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        super.setMaxMessagesPerRead(maxMessagesPerRead);
+        return this;
+    }
+
+    @Override
+    public DatagramChannelConfig setWriteSpinCount(int writeSpinCount) {
+        super.setWriteSpinCount(writeSpinCount);
+        return this;
+    }
+
+    @Override
+    public DatagramChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis) {
+        super.setConnectTimeoutMillis(connectTimeoutMillis);
+        return this;
+    }
+
+    @Override
+    public DatagramChannelConfig setAllocator(ByteBufAllocator allocator) {
+        super.setAllocator(allocator);
+        return this;
+    }
+
+    @Override
+    public DatagramChannelConfig setRecvByteBufAllocator(RecvByteBufAllocator allocator) {
+        super.setRecvByteBufAllocator(allocator);
+        return this;
+    }
+
+    @Override
+    public DatagramChannelConfig setAutoRead(boolean autoRead) {
+        super.setAutoRead(autoRead);
+        return this;
+    }
+
+    @Override
+    public DatagramChannelConfig setAutoClose(boolean autoClose) {
+        super.setAutoClose(autoClose);
+        return this;
+    }
+
+    @Override
+    public DatagramChannelConfig setMessageSizeEstimator(MessageSizeEstimator estimator) {
+        super.setMessageSizeEstimator(estimator);
+        return this;
+    }
+
+    @Override
+    public DatagramChannelConfig setWriteBufferWaterMark(WriteBufferWaterMark writeBufferWaterMark) {
+        super.setWriteBufferWaterMark(writeBufferWaterMark);
+        return this;
+    }
+}
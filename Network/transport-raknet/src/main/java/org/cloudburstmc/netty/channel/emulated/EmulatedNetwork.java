@@ -0,0 +1,322 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.channel.emulated;
+
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFactory;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.internal.ObjectUtil;
+
+/**
+ * In-memory network connecting {@link EmulatedDatagramChannel}s. It can stand in for the datagram channel class
+ * anywhere a {@link ChannelFactory} is accepted, for example {@code RakChannelFactory.server(network)} and
+ * {@code RakChannelFactory.client(network)}.
+ * <p>
+ * Every datagram is copied into a buffer of the receiving channel and delivered on its event loop after the
+ * configured one-way latency plus a random jitter. Datagrams can be dropped, duplicated or held back to arrive out of
+ * order. With a bandwidth cap every sending channel gets its own link that serializes datagrams at that rate and
+ * drops them once more than the queue limit is waiting on it. All settings may be changed while channels are running.
+ * <p>
+ * Random decisions are drawn from a single seeded generator, so runs are repeatable as long as all channels share one
+ * event loop.
+ */
+public class EmulatedNetwork implements ChannelFactory<EmulatedDatagramChannel> {
+
+    private static final int FIRST_EPHEMERAL_PORT = 49152;
+    private static final int LAST_PORT = 65535;
+    private static final int DEFAULT_QUEUE_LIMIT = 256 * 1024;
+
+    private final ConcurrentMap<InetSocketAddress, EmulatedDatagramChannel> channels = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, EmulatedDatagramChannel> wildcardChannels = new ConcurrentHashMap<>();
+    private final Random random;
+    private int nextPort = FIRST_EPHEMERAL_PORT;
+
+    private volatile long latency;
+    private volatile long jitter;
+    private volatile double loss;
+    private volatile double reorder;
+    private volatile long reorderDelay;
+    private volatile double duplicate;
+    private volatile long bandwidth;
+    private volatile int queueLimit = DEFAULT_QUEUE_LIMIT;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder duplicated = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder deliveredBytes = new LongAdder();
+
+    public EmulatedNetwork() {
+        this(0);
+    }
+
+    /**
+     * @param seed seed of the generator deciding loss, jitter, reordering and duplication
+     */
+    public EmulatedNetwork(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public EmulatedDatagramChannel newChannel() {
+        return new EmulatedDatagramChannel(this);
+    }
+
+    /**
+     * @param latency one-way delay of every datagram
+     */
+    public EmulatedNetwork setLatency(long latency, TimeUnit unit) {
+        this.latency = unit.toNanos(ObjectUtil.checkPositiveOrZero(latency, "latency"));
+        return this;
+    }
+
+    /**
+     * @param jitter maximum random delay added on top of the latency
+     */
+    public EmulatedNetwork setJitter(long jitter, TimeUnit unit) {
+        this.jitter = unit.toNanos(ObjectUtil.checkPositiveOrZero(jitter, "jitter"));
+        return this;
+    }
+
+    /**
+     * @param loss probability from 0 to 1 that a datagram is dropped
+     */
+    public EmulatedNetwork setLoss(double loss) {
+        this.loss = checkProbability(loss, "loss");
+        return this;
+    }
+
+    /**
+     * @param reorder probability from 0 to 1 that a datagram is held back
+     * @param delay   time a held back datagram is delayed in addition to the latency
+     */
+    public EmulatedNetwork setReorder(double reorder, long delay, TimeUnit unit) {
+        this.reorder = checkProbability(reorder, "reorder");
+        this.reorderDelay = unit.toNanos(ObjectUtil.checkPositiveOrZero(delay, "delay"));
+        return this;
+    }
+
+    /**
+     * @param duplicate probability from 0 to 1 that a datagram is delivered twice
+     */
+    public EmulatedNetwork setDuplicate(double duplicate) {
+        this.duplicate = checkProbability(duplicate, "duplicate");
+        return this;
+    }
+
+    /**
+     * @param bandwidth bytes per second each channel can send or 0 for no limit
+     */
+    public EmulatedNetwork setBandwidth(long bandwidth) {
+        this.bandwidth = ObjectUtil.checkPositiveOrZero(bandwidth, "bandwidth");
+        return this;
+    }
+
+    /**
+     * @param queueLimit bytes that may wait on a bandwidth limited link before datagrams are dropped
+     */
+    public EmulatedNetwork setQueueLimit(int queueLimit) {
+        this.queueLimit = ObjectUtil.checkPositive(queueLimit, "queueLimit");
+        return this;
+    }
+
+    /**
+     * @return number of datagrams written by channels of this network
+     */
+    public long getSent() {
+        return this.sent.sum();
+    }
+
+    /**
+     * @return number of extra copies created by duplication
+     */
+    public long getDuplicated() {
+        return this.duplicated.sum();
+    }
+
+    /**
+     * @return number of datagrams lost, dropped by a full link queue or sent to an address nobody is bound to
+     */
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+
+    /**
+     * @return number of datagrams passed to a receiving channel
+     */
+    public long getDelivered() {
+        return this.delivered.sum();
+    }
+
+    public long getDeliveredBytes() {
+        return this.deliveredBytes.sum();
+    }
+
+    InetSocketAddress bind(EmulatedDatagramChannel channel, InetSocketAddress address) throws BindException {
+        if (address == null) {
+            address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        }
+
+        if (address.getPort() != 0) {
+            if (!this.register(channel, address)) {
+                throw new BindException("Address already in use: " + address);
+            }
+            return address;
+        }
+
+        synchronized (this) {
+            for (int i = FIRST_EPHEMERAL_PORT; i <= LAST_PORT; i++) {
+                InetSocketAddress ephemeral = new InetSocketAddress(address.getAddress(), this.nextPort);
+                this.nextPort = this.nextPort == LAST_PORT ? FIRST_EPHEMERAL_PORT : this.nextPort + 1;
+                if (this.register(channel, ephemeral)) {
+                    return ephemeral;
+                }
+            }
+        }
+        throw new BindException("No ephemeral port available for " + address.getAddress());
+    }
+
+    private boolean register(EmulatedDatagramChannel channel, InetSocketAddress address) {
+        if (address.getAddress().isAnyLocalAddress()) {
+            return this.wildcardChannels.putIfAbsent(address.getPort(), channel) == null;
+        }
+        return this.channels.putIfAbsent(address, channel) == null;
+    }
+
+    void unbind(EmulatedDatagramChannel channel, InetSocketAddress address) {
+        if (address.getAddress().isAnyLocalAddress()) {
+            this.wildcardChannels.remove(address.getPort(), channel);
+        } else {
+            this.channels.remove(address, channel);
+        }
+    }
+
+    /**
+     * Called from the event loop of the sender. The content is copied, the caller keeps ownership of it.
+     */
+    void send(EmulatedDatagramChannel sender, InetSocketAddress senderAddress, ByteBuf content, InetSocketAddress recipient) {
+        this.sent.increment();
+        EmulatedDatagramChannel receiver = this.channels.get(recipient);
+        if (receiver == null) {
+            receiver = this.wildcardChannels.get(recipient.getPort());
+        }
+
+        int size = content.readableBytes();
+        long delay = this.queue(sender, size);
+        if (receiver == null || delay < 0) {
+            this.dropped.increment();
+            return;
+        }
+
+        boolean lost;
+        boolean duplicated;
+        long extraDelay;
+        long duplicateDelay;
+        synchronized (this.random) {
+            lost = this.loss > 0 && this.random.nextDouble() < this.loss;
+            extraDelay = this.randomDelay();
+            duplicated = this.duplicate > 0 && this.random.nextDouble() < this.duplicate;
+            duplicateDelay = duplicated ? this.randomDelay() : 0;
+        }
+
+        if (lost) {
+            this.dropped.increment();
+        } else {
+            this.schedule(receiver, senderAddress, content, recipient, delay + extraDelay);
+        }
+        if (duplicated) {
+            this.duplicated.increment();
+            this.schedule(receiver, senderAddress, content, recipient, delay + duplicateDelay);
+        }
+    }
+
+    /**
+     * @return time the datagram waits on the sender's link or -1 if the link queue is full
+     */
+    private long queue(EmulatedDatagramChannel sender, int size) {
+        long bandwidth = this.bandwidth;
+        if (bandwidth <= 0) {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        long start = Math.max(now, sender.linkFreeAt);
+        long queued = (start - now) * bandwidth / TimeUnit.SECONDS.toNanos(1);
+        if (queued + size > this.queueLimit) {
+            return -1;
+        }
+
+        sender.linkFreeAt = start + size * TimeUnit.SECONDS.toNanos(1) / bandwidth;
+        return sender.linkFreeAt - now;
+    }
+
+    private long randomDelay() {
+        long delay = this.latency;
+        if (this.jitter > 0) {
+            delay += (long) (this.random.nextDouble() * this.jitter);
+        }
+        if (this.reorder > 0 && this.random.nextDouble() < this.reorder) {
+            delay += this.reorderDelay;
+        }
+        return delay;
+    }
+
+    private void schedule(EmulatedDatagramChannel receiver, InetSocketAddress senderAddress, ByteBuf content,
+                          InetSocketAddress recipient, long delay) {
+        ByteBuf copy = receiver.alloc().ioBuffer(content.readableBytes());
+        copy.writeBytes(content, content.readerIndex(), content.readableBytes());
+        DatagramPacket packet = new DatagramPacket(copy, recipient, senderAddress);
+
+        Runnable task = () -> {
+            int size = packet.content().readableBytes();
+            if (receiver.receive(packet)) {
+                this.delivered.increment();
+                this.deliveredBytes.add(size);
+            } else {
+                this.dropped.increment();
+            }
+        };
+
+        try {
+            if (delay > 0) {
+                receiver.eventLoop().schedule(task, delay, TimeUnit.NANOSECONDS);
+            } else {
+                receiver.eventLoop().execute(task);
+            }
+        } catch (Throwable t) {
+            // Event loop was shut down
+            packet.release();
+            this.dropped.increment();
+        }
+    }
+
+    private static double checkProbability(double value, String name) {
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1: " + value);
+        }
+        return value;
+    }
+}
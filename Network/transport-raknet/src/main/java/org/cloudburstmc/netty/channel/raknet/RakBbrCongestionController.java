@@ -0,0 +1,290 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.channel.raknet;
+
+import static org.cloudburstmc.netty.channel.raknet.RakConstants.CC_ADDITIONAL_VARIANCE;
+import static org.cloudburstmc.netty.channel.raknet.RakConstants.CC_MAXIMUM_THRESHOLD;
+import static org.cloudburstmc.netty.channel.raknet.RakConstants.CC_SYN;
+
+import org.cloudburstmc.netty.channel.raknet.packet.RakDatagramPacket;
+
+/**
+ * Congestion controller modelled after BBR. Instead of reacting to loss it estimates the bottleneck bandwidth
+ * and the minimum round trip time of the path and keeps roughly one bandwidth-delay product in flight.
+ * <p>
+ * The controller runs through the BBR states:
+ * <ul>
+ *     <li>startup grows the window by every acknowledged byte until the delivery rate stops growing</li>
+ *     <li>drain lets the queue built during startup empty</li>
+ *     <li>probe bandwidth cycles the window gain through 1.25, 0.75 and six rounds of 1</li>
+ *     <li>probe RTT shrinks the window for a short time if the minimum RTT was not seen for 10 seconds</li>
+ * </ul>
+ * Resends and NAKs do not shrink the window, which keeps throughput up on lossy wireless links. RakNet sends in
+ * flush intervals rather than pacing individual datagrams, so the gains are applied to the window and the window
+ * gets extra room for ACKs that are delayed until the peer's next flush.
+ */
+public class RakBbrCongestionController implements RakCongestionController {
+
+    private static final double STARTUP_GAIN = 2.885;
+    private static final double[] PROBE_BW_GAINS = {1.25, 0.75, 1, 1, 1, 1, 1, 1};
+    private static final int BANDWIDTH_FILTER_ROUNDS = 10;
+    private static final int FULL_BANDWIDTH_ROUNDS = 3;
+    private static final double FULL_BANDWIDTH_GROWTH = 1.25;
+    private static final long MIN_RTT_EXPIRY = 10_000;
+    private static final long PROBE_RTT_DURATION = 200;
+    private static final long ACK_DELAY_ALLOWANCE = 2 * CC_SYN;
+    private static final int MIN_WINDOW_DATAGRAMS = 4;
+
+    private enum State {
+        STARTUP,
+        DRAIN,
+        PROBE_BW,
+        PROBE_RTT
+    }
+
+    private final int mtu;
+    private final int minWindow;
+    private State state = State.STARTUP;
+    private double cwnd;
+    private int unackedBytes;
+    private boolean windowLimited;
+
+    private double estimatedRTT = -1;
+    private double deviationRTT = -1;
+    private long minRtt = -1;
+    private long minRttStamp;
+    private boolean minRttExpired;
+    private long probeRttDone;
+
+    // Delivery rate in bytes per millisecond, max filtered over the last rounds
+    private final double[] bandwidthSamples = new double[BANDWIDTH_FILTER_ROUNDS];
+    private double maxBandwidth;
+    private int round;
+    private long roundStart = -1;
+    private int roundAckedBytes;
+
+    private double fullBandwidth;
+    private int fullBandwidthRounds;
+    private int cycleIndex;
+
+    public RakBbrCongestionController(int mtu) {
+        this.mtu = mtu;
+        this.minWindow = mtu * MIN_WINDOW_DATAGRAMS;
+        this.cwnd = this.minWindow;
+    }
+
+    @Override
+    public int getRetransmissionBandwidth() {
+        return this.unackedBytes;
+    }
+
+    @Override
+    public int getTransmissionBandwidth() {
+        return this.cwnd > this.unackedBytes ? (int) (this.cwnd - this.unackedBytes) : 0;
+    }
+
+    @Override
+    public void onPacketReceived(long curTime) {
+    }
+
+    @Override
+    public void onResend(long curTime) {
+        // Loss is not treated as a congestion signal
+    }
+
+    @Override
+    public void onNak() {
+    }
+
+    @Override
+    public void onAck(long curTime, RakDatagramPacket datagram, long curSequenceIndex) {
+        int size = datagram.getSize();
+        this.unackedBytes -= size;
+
+        long rtt = Math.max(curTime - datagram.getSendTime(), 0);
+        this.updateRtt(curTime, rtt);
+
+        if (this.roundStart == -1) {
+            this.roundStart = curTime;
+        }
+        this.roundAckedBytes += size;
+
+        // A round lasts about one minimum RTT, but at least one flush interval
+        long elapsed = curTime - this.roundStart;
+        if (elapsed >= Math.max(this.minRtt, CC_SYN)) {
+            this.onRoundEnd(this.roundAckedBytes / (double) elapsed);
+            this.roundStart = curTime;
+            this.roundAckedBytes = 0;
+            this.windowLimited = false;
+        }
+
+        this.updateWindow(size);
+    }
+
+    private void updateRtt(long curTime, long rtt) {
+        if (this.estimatedRTT == -1) {
+            this.estimatedRTT = rtt;
+            this.deviationRTT = rtt;
+        } else {
+            double d = 0.05D;
+            double difference = rtt - this.estimatedRTT;
+            this.estimatedRTT += d * difference;
+            this.deviationRTT += d * (Math.abs(difference) - this.deviationRTT);
+        }
+
+        if (this.minRtt == -1 || rtt <= this.minRtt || this.minRttExpired) {
+            this.minRtt = rtt;
+            this.minRttStamp = curTime;
+            this.minRttExpired = false;
+        } else if (curTime - this.minRttStamp > MIN_RTT_EXPIRY && this.state != State.STARTUP
+                && this.state != State.PROBE_RTT) {
+            // Drain the path so the next samples show the propagation delay
+            this.state = State.PROBE_RTT;
+            this.probeRttDone = curTime + Math.max(PROBE_RTT_DURATION, this.minRtt);
+            this.minRttExpired = true;
+        }
+
+        if (this.state == State.PROBE_RTT && curTime >= this.probeRttDone && this.unackedBytes <= this.minWindow) {
+            this.minRttStamp = curTime;
+            this.state = State.PROBE_BW;
+        }
+    }
+
+    private void onRoundEnd(double sample) {
+        // Rounds that did not fill the window only tell us the application sent little
+        if (this.windowLimited || sample > this.maxBandwidth) {
+            this.bandwidthSamples[this.round] = sample;
+            this.round = (this.round + 1) % BANDWIDTH_FILTER_ROUNDS;
+            double max = 0;
+            for (double bandwidth : this.bandwidthSamples) {
+                max = Math.max(max, bandwidth);
+            }
+            this.maxBandwidth = max;
+        }
+
+        switch (this.state) {
+            case STARTUP:
+                if (this.maxBandwidth >= this.fullBandwidth * FULL_BANDWIDTH_GROWTH) {
+                    this.fullBandwidth = this.maxBandwidth;
+                    this.fullBandwidthRounds = 0;
+                } else if (this.windowLimited && ++this.fullBandwidthRounds >= FULL_BANDWIDTH_ROUNDS) {
+                    this.state = State.DRAIN;
+                }
+                break;
+            case DRAIN:
+                if (this.unackedBytes <= this.getBdp()) {
+                    this.state = State.PROBE_BW;
+                    this.cycleIndex = 0;
+                }
+                break;
+            case PROBE_BW:
+                this.cycleIndex = (this.cycleIndex + 1) % PROBE_BW_GAINS.length;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void updateWindow(int ackedBytes) {
+        double bdp = this.getBdp();
+        if (bdp <= 0) {
+            // No estimate yet, grow like slow start
+            this.cwnd += ackedBytes;
+            return;
+        }
+
+        double target;
+        switch (this.state) {
+            case STARTUP:
+                // Grow by the acknowledged bytes, the bandwidth estimate lags behind the window
+                target = bdp * STARTUP_GAIN + this.maxBandwidth * ACK_DELAY_ALLOWANCE;
+                if (this.cwnd < target) {
+                    this.cwnd += ackedBytes;
+                }
+                return;
+            case DRAIN:
+                target = bdp;
+                break;
+            case PROBE_BW:
+                target = bdp * PROBE_BW_GAINS[this.cycleIndex];
+                break;
+            default:
+                target = this.minWindow;
+                break;
+        }
+
+        target += this.maxBandwidth * ACK_DELAY_ALLOWANCE;
+        this.cwnd = Math.max(target, this.minWindow);
+    }
+
+    private double getBdp() {
+        if (this.minRtt == -1 || this.maxBandwidth <= 0) {
+            return 0;
+        }
+        return this.maxBandwidth * Math.max(this.minRtt, 1);
+    }
+
+    @Override
+    public void onReliableSend(RakDatagramPacket datagram) {
+        this.unackedBytes += datagram.getSize();
+        if (this.unackedBytes + this.mtu >= this.cwnd) {
+            this.windowLimited = true;
+        }
+    }
+
+    @Override
+    public void onSendAck() {
+    }
+
+    @Override
+    public long getRtoForRetransmission() {
+        if (this.estimatedRTT == -1) {
+            return CC_MAXIMUM_THRESHOLD;
+        }
+
+        long threshold = (long) ((2.0D * this.estimatedRTT + 4.0D * this.deviationRTT) + CC_ADDITIONAL_VARIANCE);
+        return Math.min(threshold, CC_MAXIMUM_THRESHOLD);
+    }
+
+    @Override
+    public double getRTT() {
+        return this.estimatedRTT;
+    }
+
+    @Override
+    public int getUnackedBytes() {
+        return this.unackedBytes;
+    }
+
+    /**
+     * @return estimated bottleneck bandwidth in bytes per second
+     */
+    public double getBandwidth() {
+        return this.maxBandwidth * 1000;
+    }
+
+    /**
+     * @return minimum round trip time in milliseconds or -1 if not measured yet
+     */
+    public long getMinRtt() {
+        return this.minRtt;
+    }
+
+    public double getWindow() {
+        return this.cwnd;
+    }
+}
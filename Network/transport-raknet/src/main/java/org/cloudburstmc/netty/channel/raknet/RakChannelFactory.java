@@ -16,15 +16,26 @@
 
 package org.cloudburstmc.netty.channel.raknet;
 
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelException;
 import io.netty.channel.ChannelFactory;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ReflectiveChannelFactory;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.socket.DatagramChannel;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.StringUtil;
 
 public class RakChannelFactory<T extends Channel> implements ChannelFactory<T> {
@@ -70,6 +81,69 @@ public class RakChannelFactory<T extends Channel> implements ChannelFactory<T> {
         return new RakChannelFactory<>(RakServerChannel.class, ch -> new RakServerChannel(ch, childConsumer), channelFactory, parentConsumer);
     }
 
+    public static RakChannelFactory<RakServerChannel> reusePortServer() {
+        return reusePortServer(null, null);
+    }
+
+    /**
+     * Creates a server factory for epoll datagram sockets with {@code SO_REUSEPORT} enabled, so several server
+     * channels can be bound to the same address. The kernel spreads remote peers over the sockets by their address,
+     * so every peer always reaches the same {@link RakServerChannel} together with its child channel map, offline
+     * handler and rate limiter state. Packet limits therefore apply per socket.
+     * <p>
+     * The bootstrap has to use an {@link io.netty.channel.epoll.EpollEventLoopGroup}. Bind it once per event loop,
+     * see {@link #bindReusePort(ServerBootstrap, SocketAddress, int)}.
+     *
+     * @throws IllegalStateException if the native epoll transport is not available
+     */
+    public static RakChannelFactory<RakServerChannel> reusePortServer(Consumer<DatagramChannel> parentConsumer, Consumer<RakChannel> childConsumer) {
+        if (!Epoll.isAvailable()) {
+            throw new IllegalStateException("SO_REUSEPORT requires the native epoll transport", Epoll.unavailabilityCause());
+        }
+
+        Consumer<DatagramChannel> consumer = channel -> {
+            channel.config().setOption(EpollChannelOption.SO_REUSEPORT, true);
+            if (parentConsumer != null) {
+                parentConsumer.accept(channel);
+            }
+        };
+        return server(EpollDatagramChannel.class, consumer, childConsumer);
+    }
+
+    /**
+     * Binds a bootstrap created with {@link #reusePortServer(Consumer, Consumer)} several times to the same address.
+     * Every bind registers the server channel on the next event loop of the group, so binding once per event loop
+     * reads each socket on its own thread. If the address uses port 0, the port picked for the first socket is
+     * reused for the others.
+     * <p>
+     * Blocks until all sockets are bound and must not be called from an event loop.
+     *
+     * @param bootstrap bootstrap to bind
+     * @param address   local address shared by all sockets
+     * @param sockets   number of sockets, usually the number of event loops in the group
+     * @return group of the bound {@link RakServerChannel}s, closing it closes all sockets
+     * @throws ChannelException if any socket could not be bound, already bound sockets are closed
+     */
+    public static ChannelGroup bindReusePort(ServerBootstrap bootstrap, SocketAddress address, int sockets) {
+        ObjectUtil.checkPositive(sockets, "sockets");
+        ChannelGroup group = new DefaultChannelGroup("raknet-reuseport", GlobalEventExecutor.INSTANCE);
+
+        for (int i = 0; i < sockets; i++) {
+            ChannelFuture future = bootstrap.bind(address).awaitUninterruptibly();
+            if (!future.isSuccess()) {
+                group.close().awaitUninterruptibly();
+                throw new ChannelException("Unable to bind socket " + i + " of " + sockets + " to " + address, future.cause());
+            }
+            group.add(future.channel());
+
+            if (i == 0 && address instanceof InetSocketAddress && ((InetSocketAddress) address).getPort() == 0) {
+                address = new InetSocketAddress(((InetSocketAddress) address).getAddress(),
+                        ((InetSocketAddress) future.channel().localAddress()).getPort());
+            }
+        }
+        return group;
+    }
+
     public static RakChannelFactory<RakClientChannel> client(Class<? extends DatagramChannel> clazz) {
         return client(clazz, null);
     }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.channel.raknet;
+
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
+import org.cloudburstmc.netty.channel.raknet.packet.RakDatagramPacket;
+
+/**
+ * Decides how many bytes a RakNet session may send per flush and when unacknowledged datagrams are resent.
+ * <p>
+ * One instance is created per session with the factory set in {@link RakChannelOption#RAK_CONGESTION_CONTROLLER}.
+ * All methods are called from the session's event loop.
+ *
+ * @see RakSlidingWindow
+ * @see RakBbrCongestionController
+ */
+public interface RakCongestionController {
+
+    /**
+     * @return number of bytes of stale datagrams that may be resent in this flush
+     */
+    int getRetransmissionBandwidth();
+
+    /**
+     * @return number of bytes of new datagrams that may be sent in this flush
+     */
+    int getTransmissionBandwidth();
+
+    /**
+     * Called for every received datagram.
+     */
+    void onPacketReceived(long curTime);
+
+    /**
+     * Called once per flush in which stale datagrams were resent.
+     */
+    void onResend(long curTime);
+
+    /**
+     * Called for every datagram the remote peer reported as missing.
+     */
+    void onNak();
+
+    /**
+     * Called for every datagram acknowledged by the remote peer.
+     *
+     * @param curSequenceIndex next datagram sequence number expected from the remote peer
+     */
+    void onAck(long curTime, RakDatagramPacket datagram, long curSequenceIndex);
+
+    /**
+     * Called the first time a datagram holding a reliable packet is sent.
+     */
+    void onReliableSend(RakDatagramPacket datagram);
+
+    /**
+     * Called after an ACK datagram was written.
+     */
+    void onSendAck();
+
+    /**
+     * @return time in milliseconds after which an unacknowledged datagram is resent
+     */
+    long getRtoForRetransmission();
+
+    /**
+     * @return smoothed round trip time in milliseconds or -1 if not measured yet
+     */
+    double getRTT();
+
+    int getUnackedBytes();
+
+    @FunctionalInterface
+    interface Factory {
+
+        Factory SLIDING_WINDOW = RakSlidingWindow::new;
+        Factory BBR = RakBbrCongestionController::new;
+
+        /**
+         * @param mtu MTU negotiated for the session
+         */
+        RakCongestionController create(int mtu);
+    }
+}
@@ -61,6 +61,10 @@ public class RakConstants {
      * A number of all datagrams that will be handled within one RakNet tick before server starts dropping any incoming data.
      */
     public static final int DEFAULT_GLOBAL_PACKET_LIMIT = 100000;
+    /**
+     * Number of datagrams read or flushed with one syscall by the server, 1 disables batching
+     */
+    public static final int DEFAULT_DATAGRAM_BATCH_SIZE = 1;
     /*
      * Flags
      */
@@ -18,7 +18,9 @@ package org.cloudburstmc.netty.channel.raknet;
 
 import org.cloudburstmc.netty.channel.proxy.ProxyChannel;
 import org.cloudburstmc.netty.channel.raknet.config.DefaultRakServerConfig;
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
 import org.cloudburstmc.netty.channel.raknet.config.RakServerChannelConfig;
+import org.cloudburstmc.netty.channel.raknet.config.RakServerMetrics;
 import org.cloudburstmc.netty.handler.codec.raknet.common.UnconnectedPongEncoder;
 import org.cloudburstmc.netty.handler.codec.raknet.server.RakServerOfflineHandler;
 import org.cloudburstmc.netty.handler.codec.raknet.server.RakServerRateLimiter;
@@ -50,6 +52,9 @@ public class RakServerChannel extends ProxyChannel<DatagramChannel> implements S
     private final RakServerChannelConfig config;
     private final Map<SocketAddress, RakChildChannel> childChannelMap = new ConcurrentHashMap<>();
     private final Consumer<RakChannel> childConsumer;
+    private final Runnable flushTask = this::flushPendingDatagrams;
+    private int pendingDatagrams;
+    private boolean flushScheduled;
 
     public RakServerChannel(DatagramChannel channel) {
         this(channel, null);
@@ -132,6 +137,46 @@ public class RakServerChannel extends ProxyChannel<DatagramChannel> implements S
         combiner.finish(combinedPromise);
     }
 
+    /**
+     * Flushes datagrams written by child channels to the underlying socket.
+     * <p>
+     * If {@link RakChannelOption#RAK_DATAGRAM_BATCH_SIZE} is greater than 1, the flush is deferred until the current
+     * event loop task completes or the batch is full. Sessions that tick together then share one {@code sendmmsg}
+     * call on the epoll transport instead of one send call per session. Child channels may run on other event
+     * loops, their calls are handed over to the event loop of this channel.
+     *
+     * @param datagrams number of datagrams written since the last call
+     */
+    public void flushDatagrams(int datagrams) {
+        if (!this.eventLoop().inEventLoop()) {
+            this.eventLoop().execute(() -> this.flushDatagrams(datagrams));
+            return;
+        }
+
+        this.pendingDatagrams += datagrams;
+        if (this.pendingDatagrams >= this.config.getDatagramBatchSize()) {
+            this.flushPendingDatagrams();
+        } else if (!this.flushScheduled) {
+            this.flushScheduled = true;
+            this.eventLoop().execute(this.flushTask);
+        }
+    }
+
+    private void flushPendingDatagrams() {
+        this.flushScheduled = false;
+        int datagrams = this.pendingDatagrams;
+        if (datagrams == 0) {
+            return;
+        }
+        this.pendingDatagrams = 0;
+        this.parent().flush();
+
+        RakServerMetrics metrics = this.config.getMetrics();
+        if (metrics != null) {
+            metrics.datagramBatchOut(datagrams);
+        }
+    }
+
     public boolean tryBlockAddress(InetAddress address, long time, TimeUnit unit) {
         RakServerRateLimiter rateLimiter = this.pipeline().get(RakServerRateLimiter.class);
         if (rateLimiter != null) {
@@ -27,14 +27,21 @@ import java.util.concurrent.ThreadLocalRandom;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.util.internal.ObjectUtil;
 
 /**
  * The default {@link RakServerChannelConfig} implementation for RakNet server.
  */
 public class DefaultRakServerConfig extends DefaultChannelConfig implements RakServerChannelConfig {
 
+    // Ethernet MTU, RakNet never sends larger datagrams
+    private static final int MAX_DATAGRAM_SIZE = 1500;
+
     private volatile int maxChannels;
     private volatile long guid = ThreadLocalRandom.current().nextLong();
     private volatile int[] supportedProtocols;
@@ -45,9 +52,12 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
     private volatile int maxMtu = RakConstants.MAXIMUM_MTU_SIZE;
     private volatile int minMtu = RakConstants.MINIMUM_MTU_SIZE;
     private volatile int packetLimit = RakConstants.DEFAULT_PACKET_LIMIT;
+    private volatile int packetBurst;
+    private volatile boolean lazyRateLimitRefill;
     private volatile int globalPacketLimit = RakConstants.DEFAULT_GLOBAL_PACKET_LIMIT;
     private volatile RakServerMetrics metrics;
     private volatile boolean sendCookie;
+    private volatile int datagramBatchSize = RakConstants.DEFAULT_DATAGRAM_BATCH_SIZE;
 
 
     public DefaultRakServerConfig(RakServerChannel channel) {
@@ -59,8 +69,9 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
         return getOptions(
                 super.getOptions(),
                 RakChannelOption.RAK_GUID, RakChannelOption.RAK_MAX_CHANNELS, RakChannelOption.RAK_MAX_CONNECTIONS, RakChannelOption.RAK_SUPPORTED_PROTOCOLS, RakChannelOption.RAK_UNCONNECTED_MAGIC,
-                RakChannelOption.RAK_ADVERTISEMENT, RakChannelOption.RAK_HANDLE_PING, RakChannelOption.RAK_PACKET_LIMIT, RakChannelOption.RAK_GLOBAL_PACKET_LIMIT, RakChannelOption.RAK_SEND_COOKIE,
-                RakChannelOption.RAK_SERVER_METRICS, RakChannelOption.RAK_IP_DONT_FRAGMENT);
+                RakChannelOption.RAK_ADVERTISEMENT, RakChannelOption.RAK_HANDLE_PING, RakChannelOption.RAK_PACKET_LIMIT, RakChannelOption.RAK_PACKET_BURST,
+                RakChannelOption.RAK_LAZY_RATE_LIMIT_REFILL, RakChannelOption.RAK_GLOBAL_PACKET_LIMIT, RakChannelOption.RAK_SEND_COOKIE,
+                RakChannelOption.RAK_SERVER_METRICS, RakChannelOption.RAK_IP_DONT_FRAGMENT, RakChannelOption.RAK_DATAGRAM_BATCH_SIZE);
     }
 
     @SuppressWarnings("unchecked")
@@ -96,6 +107,12 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
         if (option == RakChannelOption.RAK_PACKET_LIMIT) {
             return (T) Integer.valueOf(this.getPacketLimit());
         }
+        if (option == RakChannelOption.RAK_PACKET_BURST) {
+            return (T) Integer.valueOf(this.getPacketBurst());
+        }
+        if (option == RakChannelOption.RAK_LAZY_RATE_LIMIT_REFILL) {
+            return (T) Boolean.valueOf(this.isLazyRateLimitRefill());
+        }
         if (option == RakChannelOption.RAK_GLOBAL_PACKET_LIMIT) {
             return (T) Integer.valueOf(this.getGlobalPacketLimit());
         }
@@ -105,6 +122,9 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
         if (option == RakChannelOption.RAK_SEND_COOKIE) {
             return (T) Boolean.valueOf(this.sendCookie);
         }
+        if (option == RakChannelOption.RAK_DATAGRAM_BATCH_SIZE) {
+            return (T) Integer.valueOf(this.getDatagramBatchSize());
+        }
         return this.channel.parent().config().getOption(option);
     }
 
@@ -132,12 +152,18 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
             this.setMinMtu((Integer) value);
         } else if (option == RakChannelOption.RAK_PACKET_LIMIT) {
             this.setPacketLimit((Integer) value);
+        } else if (option == RakChannelOption.RAK_PACKET_BURST) {
+            this.setPacketBurst((Integer) value);
+        } else if (option == RakChannelOption.RAK_LAZY_RATE_LIMIT_REFILL) {
+            this.setLazyRateLimitRefill((Boolean) value);
         } else if (option == RakChannelOption.RAK_GLOBAL_PACKET_LIMIT) {
             this.setGlobalPacketLimit((Integer) value);
         } else if (option == RakChannelOption.RAK_SEND_COOKIE) {
             this.setSendCookie((Boolean) value);
         } else if (option == RakChannelOption.RAK_SERVER_METRICS) {
             this.setMetrics((RakServerMetrics) value);
+        } else if (option == RakChannelOption.RAK_DATAGRAM_BATCH_SIZE) {
+            this.setDatagramBatchSize((Integer) value);
         } else {
             return this.channel.parent().config().setOption(option, value);
         }
@@ -256,7 +282,7 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
 
     @Override
     public void setPacketLimit(int limit) {
-        this.packetLimit = limit;
+        this.packetLimit = ObjectUtil.checkPositiveOrZero(limit, "limit");
     }
 
     @Override
@@ -264,6 +290,27 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
         return this.packetLimit;
     }
 
+    @Override
+    public int getPacketBurst() {
+        int burst = this.packetBurst;
+        return burst > 0 ? burst : this.packetLimit;
+    }
+
+    @Override
+    public void setPacketBurst(int burst) {
+        this.packetBurst = burst;
+    }
+
+    @Override
+    public boolean isLazyRateLimitRefill() {
+        return this.lazyRateLimitRefill;
+    }
+
+    @Override
+    public void setLazyRateLimitRefill(boolean lazyRefill) {
+        this.lazyRateLimitRefill = lazyRefill;
+    }
+
     @Override
     public int getGlobalPacketLimit() {
         return globalPacketLimit;
@@ -271,7 +318,7 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
 
     @Override
     public void setGlobalPacketLimit(int globalPacketLimit) {
-        this.globalPacketLimit = globalPacketLimit;
+        this.globalPacketLimit = ObjectUtil.checkPositiveOrZero(globalPacketLimit, "globalPacketLimit");
     }
 
     @Override
@@ -284,6 +331,24 @@ public class DefaultRakServerConfig extends DefaultChannelConfig implements RakS
         return this.sendCookie;
     }
 
+    @Override
+    public int getDatagramBatchSize() {
+        return this.datagramBatchSize;
+    }
+
+    @Override
+    public void setDatagramBatchSize(int batchSize) {
+        ObjectUtil.checkPositive(batchSize, "batchSize");
+        this.datagramBatchSize = batchSize;
+
+        // Only the epoll transport supports scattering reads, other transports reject the option
+        ChannelConfig config = this.channel.parent().config();
+        int payloadSize = batchSize > 1 ? MAX_DATAGRAM_SIZE : 0;
+        if (config.setOption(EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE, payloadSize)) {
+            config.setRecvByteBufAllocator(new FixedRecvByteBufAllocator(Math.max(batchSize * MAX_DATAGRAM_SIZE, 2048)));
+        }
+    }
+
     @Override
     public void setMetrics(RakServerMetrics metrics) {
         this.metrics = metrics;
@@ -19,11 +19,15 @@ package org.cloudburstmc.netty.channel.raknet.config;
 import static org.cloudburstmc.netty.channel.raknet.RakConstants.MAXIMUM_MTU_SIZE;
 import static org.cloudburstmc.netty.channel.raknet.RakConstants.SESSION_TIMEOUT_MS;
 
+import org.cloudburstmc.netty.channel.raknet.RakCongestionController;
+
 import java.util.Map;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.util.internal.ObjectUtil;
 
 /**
  * The default {@link RakChannelConfig} implementation for RakNet server child channel or client channel.
@@ -39,6 +43,11 @@ public class DefaultRakSessionConfig extends DefaultChannelConfig implements Rak
     private volatile boolean autoFlush = true;
     private volatile int flushInterval = 10;
     private volatile int maxQueuedBytes = 64 * 1024 * 1024; // 64 MB
+    private volatile RakCongestionController.Factory congestionControllerFactory = RakCongestionController.Factory.SLIDING_WINDOW;
+    private volatile WriteBufferWaterMark queuedBytesWaterMark = new WriteBufferWaterMark(8 * 1024 * 1024, 32 * 1024 * 1024);
+    private volatile int maxPendingSplitBytes = 16 * 1024 * 1024; // 16 MB
+    private volatile int maxSplitParts = 4096;
+    private volatile boolean compositeSplitPackets;
 
     public DefaultRakSessionConfig(Channel channel) {
         super(channel);
@@ -49,7 +58,9 @@ public class DefaultRakSessionConfig extends DefaultChannelConfig implements Rak
         return this.getOptions(
                 super.getOptions(),
                 RakChannelOption.RAK_GUID, RakChannelOption.RAK_MAX_CHANNELS, RakChannelOption.RAK_MTU, RakChannelOption.RAK_PROTOCOL_VERSION, RakChannelOption.RAK_ORDERING_CHANNELS,
-                RakChannelOption.RAK_METRICS, RakChannelOption.RAK_SESSION_TIMEOUT, RakChannelOption.RAK_AUTO_FLUSH, RakChannelOption.RAK_FLUSH_INTERVAL);
+                RakChannelOption.RAK_METRICS, RakChannelOption.RAK_SESSION_TIMEOUT, RakChannelOption.RAK_AUTO_FLUSH, RakChannelOption.RAK_FLUSH_INTERVAL,
+                RakChannelOption.RAK_MAX_QUEUED_BYTES, RakChannelOption.RAK_QUEUED_BYTES_WATER_MARK, RakChannelOption.RAK_CONGESTION_CONTROLLER,
+                RakChannelOption.RAK_MAX_PENDING_SPLIT_BYTES, RakChannelOption.RAK_MAX_SPLIT_PARTS, RakChannelOption.RAK_COMPOSITE_SPLIT_PACKETS);
     }
 
     @SuppressWarnings("unchecked")
@@ -82,6 +93,21 @@ public class DefaultRakSessionConfig extends DefaultChannelConfig implements Rak
         if (option == RakChannelOption.RAK_MAX_QUEUED_BYTES) {
             return (T) Integer.valueOf(this.getMaxQueuedBytes());
         }
+        if (option == RakChannelOption.RAK_QUEUED_BYTES_WATER_MARK) {
+            return (T) this.getQueuedBytesWaterMark();
+        }
+        if (option == RakChannelOption.RAK_CONGESTION_CONTROLLER) {
+            return (T) this.getCongestionControllerFactory();
+        }
+        if (option == RakChannelOption.RAK_MAX_PENDING_SPLIT_BYTES) {
+            return (T) Integer.valueOf(this.getMaxPendingSplitBytes());
+        }
+        if (option == RakChannelOption.RAK_MAX_SPLIT_PARTS) {
+            return (T) Integer.valueOf(this.getMaxSplitParts());
+        }
+        if (option == RakChannelOption.RAK_COMPOSITE_SPLIT_PACKETS) {
+            return (T) Boolean.valueOf(this.isCompositeSplitPackets());
+        }
         return this.channel.parent().config().getOption(option);
     }
 
@@ -108,6 +134,16 @@ public class DefaultRakSessionConfig extends DefaultChannelConfig implements Rak
             this.setFlushInterval((Integer) value);
         } else if (option == RakChannelOption.RAK_MAX_QUEUED_BYTES) {
             this.setMaxQueuedBytes((Integer) value);
+        } else if (option == RakChannelOption.RAK_QUEUED_BYTES_WATER_MARK) {
+            this.setQueuedBytesWaterMark((WriteBufferWaterMark) value);
+        } else if (option == RakChannelOption.RAK_CONGESTION_CONTROLLER) {
+            this.setCongestionControllerFactory((RakCongestionController.Factory) value);
+        } else if (option == RakChannelOption.RAK_MAX_PENDING_SPLIT_BYTES) {
+            this.setMaxPendingSplitBytes((Integer) value);
+        } else if (option == RakChannelOption.RAK_MAX_SPLIT_PARTS) {
+            this.setMaxSplitParts((Integer) value);
+        } else if (option == RakChannelOption.RAK_COMPOSITE_SPLIT_PACKETS) {
+            this.setCompositeSplitPackets((Boolean) value);
         } else {
             return this.channel.parent().config().setOption(option, value);
         }
@@ -210,4 +246,54 @@ public class DefaultRakSessionConfig extends DefaultChannelConfig implements Rak
     public int getMaxQueuedBytes() {
         return maxQueuedBytes;
     }
+
+    @Override
+    public void setQueuedBytesWaterMark(WriteBufferWaterMark waterMark) {
+        this.queuedBytesWaterMark = ObjectUtil.checkNotNull(waterMark, "waterMark");
+    }
+
+    @Override
+    public WriteBufferWaterMark getQueuedBytesWaterMark() {
+        return this.queuedBytesWaterMark;
+    }
+
+    @Override
+    public void setCongestionControllerFactory(RakCongestionController.Factory factory) {
+        this.congestionControllerFactory = ObjectUtil.checkNotNull(factory, "factory");
+    }
+
+    @Override
+    public RakCongestionController.Factory getCongestionControllerFactory() {
+        return this.congestionControllerFactory;
+    }
+
+    @Override
+    public void setMaxPendingSplitBytes(int maxPendingSplitBytes) {
+        this.maxPendingSplitBytes = maxPendingSplitBytes;
+    }
+
+    @Override
+    public int getMaxPendingSplitBytes() {
+        return this.maxPendingSplitBytes;
+    }
+
+    @Override
+    public void setMaxSplitParts(int maxSplitParts) {
+        this.maxSplitParts = ObjectUtil.checkPositive(maxSplitParts, "maxSplitParts");
+    }
+
+    @Override
+    public int getMaxSplitParts() {
+        return this.maxSplitParts;
+    }
+
+    @Override
+    public void setCompositeSplitPackets(boolean composite) {
+        this.compositeSplitPackets = composite;
+    }
+
+    @Override
+    public boolean isCompositeSplitPackets() {
+        return this.compositeSplitPackets;
+    }
 }
@@ -16,7 +16,10 @@
 
 package org.cloudburstmc.netty.channel.raknet.config;
 
+import org.cloudburstmc.netty.channel.raknet.RakCongestionController;
+
 import io.netty.channel.ChannelConfig;
+import io.netty.channel.WriteBufferWaterMark;
 
 public interface RakChannelConfig extends ChannelConfig {
 
@@ -55,4 +58,24 @@ public interface RakChannelConfig extends ChannelConfig {
     void setMaxQueuedBytes(int maxQueuedBytes);
 
     int getMaxQueuedBytes();
+
+    void setQueuedBytesWaterMark(WriteBufferWaterMark waterMark);
+
+    WriteBufferWaterMark getQueuedBytesWaterMark();
+
+    void setCongestionControllerFactory(RakCongestionController.Factory factory);
+
+    RakCongestionController.Factory getCongestionControllerFactory();
+
+    void setMaxPendingSplitBytes(int maxPendingSplitBytes);
+
+    int getMaxPendingSplitBytes();
+
+    void setMaxSplitParts(int maxSplitParts);
+
+    int getMaxSplitParts();
+
+    void setCompositeSplitPackets(boolean composite);
+
+    boolean isCompositeSplitPackets();
 }
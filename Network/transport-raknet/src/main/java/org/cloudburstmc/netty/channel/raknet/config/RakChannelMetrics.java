@@ -50,6 +50,15 @@ public interface RakChannelMetrics {
     default void nackOut(int count) {
     }
 
+    /**
+     * Called once per flush that sent acknowledgements.
+     *
+     * @param ranges    number of ranges written to ACK datagrams
+     * @param datagrams number of received datagrams acknowledged by those ranges
+     */
+    default void ackRangesOut(int ranges, int datagrams) {
+    }
+
     default void nackIn(int count) {
     }
 
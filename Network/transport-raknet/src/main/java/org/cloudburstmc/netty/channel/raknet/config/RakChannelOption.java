@@ -16,8 +16,11 @@
 
 package org.cloudburstmc.netty.channel.raknet.config;
 
+import org.cloudburstmc.netty.channel.raknet.RakCongestionController;
+
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
 
 public class RakChannelOption<T> extends ChannelOption<T> {
 
@@ -145,6 +148,22 @@ public class RakChannelOption<T> extends ChannelOption<T> {
     public static final ChannelOption<Integer> RAK_PACKET_LIMIT =
             valueOf(RakChannelOption.class, "RAK_PACKET_LIMIT");
 
+    /**
+     * A number of datagram packets each address can send at once before {@link #RAK_PACKET_LIMIT} applies.
+     * The rate limiter refills RAK_PACKET_LIMIT tokens every tick up to this many.
+     * Default is 0, which uses the packet limit as burst.
+     */
+    public static final ChannelOption<Integer> RAK_PACKET_BURST =
+            valueOf(RakChannelOption.class, "RAK_PACKET_BURST");
+
+    /**
+     * Whether the rate limiter refills its buckets from the clock when a packet arrives instead of from a task
+     * running every RakNet tick. Saves the scheduled task on idle servers at the cost of a clock read per packet.
+     * Default is false.
+     */
+    public static final ChannelOption<Boolean> RAK_LAZY_RATE_LIMIT_REFILL =
+            valueOf(RakChannelOption.class, "RAK_LAZY_RATE_LIMIT_REFILL");
+
     /**
      * A number of all datagrams that will be handled within one RakNet tick before server starts dropping any incoming data.
      * Default is 100_000 (RAK_PACKET_LIMIT * 0.56 * 1500 different connections).
@@ -195,6 +214,53 @@ public class RakChannelOption<T> extends ChannelOption<T> {
     public static final ChannelOption<Integer> RAK_MAX_QUEUED_BYTES =
             valueOf(RakChannelOption.class, "RAK_MAX_QUEUED_BYTES");
 
+    /**
+     * Queued byte counts at which a RakNet session becomes unwritable and writable again.
+     * Lets producers back off before {@link #RAK_MAX_QUEUED_BYTES} disconnects the session.
+     */
+    public static final ChannelOption<WriteBufferWaterMark> RAK_QUEUED_BYTES_WATER_MARK =
+            valueOf(RakChannelOption.class, "RAK_QUEUED_BYTES_WATER_MARK");
+
+    /**
+     * Creates the congestion controller of a RakNet session. Defaults to {@link RakCongestionController.Factory#SLIDING_WINDOW}.
+     * The controller is created when the session becomes active, so server child channels have to set this option
+     * from the child consumer passed to {@link org.cloudburstmc.netty.channel.raknet.RakChannelFactory}.
+     */
+    public static final ChannelOption<RakCongestionController.Factory> RAK_CONGESTION_CONTROLLER =
+            valueOf(RakChannelOption.class, "RAK_CONGESTION_CONTROLLER");
+
+    /**
+     * Number of datagrams the RakNet server reads with one {@code recvmmsg} call and flushes with one {@code sendmmsg}
+     * call on the epoll transport. Writes of all sessions are flushed together once per event loop task or as soon as
+     * a batch is full. Other transports only get the combined flushes.
+     * Default is 1, which disables batching.
+     */
+    public static final ChannelOption<Integer> RAK_DATAGRAM_BATCH_SIZE =
+            valueOf(RakChannelOption.class, "RAK_DATAGRAM_BATCH_SIZE");
+
+    /**
+     * Maximum amount of bytes a RakNet session holds in split packets that are not reassembled yet.
+     * The session is disconnected when the remote peer exceeds it.
+     */
+    public static final ChannelOption<Integer> RAK_MAX_PENDING_SPLIT_BYTES =
+            valueOf(RakChannelOption.class, "RAK_MAX_PENDING_SPLIT_BYTES");
+
+    /**
+     * Maximum number of parts a split packet may announce. Split packets with more parts disconnect the session
+     * before any memory is reserved for them.
+     * Default is 4096.
+     */
+    public static final ChannelOption<Integer> RAK_MAX_SPLIT_PARTS =
+            valueOf(RakChannelOption.class, "RAK_MAX_SPLIT_PARTS");
+
+    /**
+     * Whether reassembled split packets are passed on as a {@link io.netty.buffer.CompositeByteBuf} of the parts
+     * instead of being copied into one buffer. Only enable this if every handler in the pipeline can read composites.
+     * Default is false.
+     */
+    public static final ChannelOption<Boolean> RAK_COMPOSITE_SPLIT_PACKETS =
+            valueOf(RakChannelOption.class, "RAK_COMPOSITE_SPLIT_PACKETS");
+
     @SuppressWarnings("deprecation")
     protected RakChannelOption() {
         super(null);
@@ -61,6 +61,14 @@ public interface RakServerChannelConfig extends ChannelConfig {
 
     void setPacketLimit(int limit);
 
+    int getPacketBurst();
+
+    void setPacketBurst(int burst);
+
+    boolean isLazyRateLimitRefill();
+
+    void setLazyRateLimitRefill(boolean lazyRefill);
+
     int getGlobalPacketLimit();
 
     void setGlobalPacketLimit(int limit);
@@ -69,6 +77,10 @@ public interface RakServerChannelConfig extends ChannelConfig {
 
     boolean getSendCookie();
 
+    int getDatagramBatchSize();
+
+    void setDatagramBatchSize(int batchSize);
+
     void setMetrics(RakServerMetrics metrics);
 
     RakServerMetrics getMetrics();
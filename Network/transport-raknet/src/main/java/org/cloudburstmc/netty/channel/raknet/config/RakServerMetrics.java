@@ -38,4 +38,26 @@ public interface RakServerMetrics {
 
     default void addressUnblocked(InetAddress address) {
     }
+
+    /**
+     * Called once per read loop of the server socket.
+     * <p>
+     * With {@link RakChannelOption#RAK_DATAGRAM_BATCH_SIZE} above 1 the epoll transport reads up to one batch with
+     * each {@code recvmmsg} call, so roughly {@code datagrams - datagrams / batchSize} syscalls were saved.
+     *
+     * @param datagrams number of datagrams read, offline packets consumed before routing are not counted
+     */
+    default void datagramBatchIn(int datagrams) {
+    }
+
+    /**
+     * Called every time datagrams written by sessions are flushed to the server socket.
+     * <p>
+     * The epoll transport sends the whole batch with one {@code sendmmsg} call, which saves {@code datagrams - 1}
+     * syscalls compared to one send per datagram.
+     *
+     * @param datagrams number of datagrams flushed
+     */
+    default void datagramBatchOut(int datagrams) {
+    }
 }
@@ -16,6 +16,7 @@
 
 package org.cloudburstmc.netty.handler.codec.raknet.common;
 
+import static org.cloudburstmc.netty.channel.raknet.RakConstants.CC_SYN;
 import static org.cloudburstmc.netty.channel.raknet.RakConstants.FLAG_ACK;
 import static org.cloudburstmc.netty.channel.raknet.RakConstants.FLAG_NACK;
 import static org.cloudburstmc.netty.channel.raknet.RakConstants.FLAG_VALID;
@@ -27,11 +28,12 @@ import static org.cloudburstmc.netty.channel.raknet.RakConstants.SESSION_STALE_M
 import static org.cloudburstmc.netty.channel.raknet.RakConstants.UDP_HEADER_SIZE;
 
 import org.cloudburstmc.netty.channel.raknet.RakChannel;
+import org.cloudburstmc.netty.channel.raknet.RakCongestionController;
 import org.cloudburstmc.netty.channel.raknet.RakDisconnectReason;
 import org.cloudburstmc.netty.channel.raknet.RakPriority;
 import org.cloudburstmc.netty.channel.raknet.RakReliability;
-import org.cloudburstmc.netty.channel.raknet.RakSlidingWindow;
 import org.cloudburstmc.netty.channel.raknet.RakState;
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelConfig;
 import org.cloudburstmc.netty.channel.raknet.config.RakChannelMetrics;
 import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
 import org.cloudburstmc.netty.channel.raknet.packet.EncapsulatedPacket;
@@ -40,16 +42,17 @@ import org.cloudburstmc.netty.channel.raknet.packet.RakMessage;
 import org.cloudburstmc.netty.util.BitQueue;
 import org.cloudburstmc.netty.util.FastBinaryMinHeap;
 import org.cloudburstmc.netty.util.IntRange;
+import org.cloudburstmc.netty.util.IntRangeSet;
+import org.cloudburstmc.netty.util.IntTimerWheel;
 import org.cloudburstmc.netty.util.RakUtils;
 import org.cloudburstmc.netty.util.RoundRobinArray;
+import org.cloudburstmc.netty.util.SequenceRing;
 import org.cloudburstmc.netty.util.SplitPacketHelper;
 
 import java.net.Inet6Address;
 import java.net.InetSocketAddress;
 import java.util.ArrayDeque;
-import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import io.netty.buffer.ByteBuf;
@@ -58,7 +61,9 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.logging.InternalLogger;
@@ -67,6 +72,14 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 public class RakSessionCodec extends ChannelDuplexHandler {
     private static final InternalLogger log = InternalLoggerFactory.getInstance(RakSessionCodec.class);
     public static final String NAME = "rak-session-codec";
+    /**
+     * User defined writability bit of the channel outbound buffer cleared while too many bytes are queued.
+     */
+    private static final int QUEUE_WRITABILITY_INDEX = 1;
+    /**
+     * Maximum distance of a held back ordered packet from the next expected ordering index.
+     */
+    private static final int MAX_ORDERING_WINDOW = 1 << 16;
 
     private final RakChannel channel;
     private ScheduledFuture<?> tickFuture;
@@ -77,7 +90,7 @@ public class RakSessionCodec extends ChannelDuplexHandler {
     private volatile long lastFlush;
 
     // Reliability, Ordering, Sequencing and datagram indexes
-    private RakSlidingWindow slidingWindow;
+    private RakCongestionController congestionController;
     private int splitIndex;
     private int datagramReadIndex;
     private int datagramWriteIndex;
@@ -87,19 +100,28 @@ public class RakSessionCodec extends ChannelDuplexHandler {
     private int[] orderWriteIndex;
 
     private RoundRobinArray<SplitPacketHelper> splitPackets;
+    private int pendingSplitBytes;
     private BitQueue reliableDatagramQueue;
 
     private FastBinaryMinHeap<EncapsulatedPacket> outgoingPackets;
+    private long queuedBytes;
+    private boolean queueWritable = true;
     private long[] outgoingPacketNextWeights;
-    private FastBinaryMinHeap<EncapsulatedPacket>[] orderingHeaps;
+    private SequenceRing<EncapsulatedPacket>[] orderingRings;
     private long currentPingTime = -1;
     private long lastPingTime = -1;
     private long lastPongTime = -1;
-    private Map<Integer, RakDatagramPacket> sentDatagrams;
+    private SequenceRing<RakDatagramPacket> sentDatagrams;
+    /**
+     * Sequence numbers of {@link #sentDatagrams} by resend deadline. Acknowledged or resent sequence numbers stay
+     * in the wheel and are skipped once polled.
+     */
+    private IntTimerWheel resendWheel;
     private Queue<IntRange> incomingAcks;
     private Queue<IntRange> incomingNaks;
-    private Queue<IntRange> outgoingAcks;
-    private Queue<IntRange> outgoingNaks;
+    private IntRangeSet outgoingAcks;
+    private IntRangeSet outgoingNaks;
+    private int outgoingAckDatagrams;
     private long lastMinWeight;
 
     public RakSessionCodec(RakChannel channel) {
@@ -112,7 +134,7 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         this.setState(RakState.CONNECTED);
         int mtu = this.getMtu();
 
-        this.slidingWindow = new RakSlidingWindow(mtu);
+        this.congestionController = this.channel.config().getCongestionControllerFactory().create(mtu);
 
         this.outgoingPacketNextWeights = new long[4];
         this.initHeapWeights();
@@ -122,18 +144,18 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         this.orderWriteIndex = new int[maxChannels];
 
         // Noinspection unchecked
-        this.orderingHeaps = new FastBinaryMinHeap[maxChannels];
-        for (int i = 0; i < maxChannels; i++) {
-            orderingHeaps[i] = new FastBinaryMinHeap<>(64);
-        }
+        // Rings are created when a channel first receives a packet out of order
+        this.orderingRings = new SequenceRing[maxChannels];
 
         this.outgoingPackets = new FastBinaryMinHeap<>(8);
-        this.sentDatagrams = new ConcurrentHashMap<>();
+        this.sentDatagrams = new SequenceRing<>(256);
+        // Slots of one tick spanning more than the maximum retransmission timeout
+        this.resendWheel = new IntTimerWheel(CC_SYN, 256, System.currentTimeMillis());
 
         this.incomingAcks = new ArrayDeque<>();
         this.incomingNaks = new ArrayDeque<>();
-        this.outgoingAcks = new ArrayDeque<>();
-        this.outgoingNaks = new ArrayDeque<>();
+        this.outgoingAcks = new IntRangeSet(64);
+        this.outgoingNaks = new IntRangeSet();
 
         this.reliableDatagramQueue = new BitQueue(512);
         this.splitPackets = new RoundRobinArray<>(256);
@@ -166,20 +188,17 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         }
         this.splitPackets = null;
 
-        for (RakDatagramPacket packet : this.sentDatagrams.values()) {
-            packet.release();
-        }
+        this.sentDatagrams.forEach(RakDatagramPacket::release);
         this.sentDatagrams = null;
-
-        FastBinaryMinHeap<EncapsulatedPacket>[] orderingHeaps = this.orderingHeaps;
-        this.orderingHeaps = null;
-        if (orderingHeaps != null) {
-            for (FastBinaryMinHeap<EncapsulatedPacket> orderingHeap : orderingHeaps) {
-                EncapsulatedPacket packet;
-                while ((packet = orderingHeap.poll()) != null) {
-                    packet.release();
+        this.resendWheel = null;
+
+        SequenceRing<EncapsulatedPacket>[] orderingRings = this.orderingRings;
+        this.orderingRings = null;
+        if (orderingRings != null) {
+            for (SequenceRing<EncapsulatedPacket> orderingRing : orderingRings) {
+                if (orderingRing != null) {
+                    orderingRing.forEach(EncapsulatedPacket::release);
                 }
-                orderingHeap.release();
             }
         }
 
@@ -192,6 +211,7 @@ public class RakSessionCodec extends ChannelDuplexHandler {
             }
             outgoingPackets.release();
         }
+        this.queuedBytes = 0;
 
         if (log.isTraceEnabled()) {
             log.trace("RakNet Session ({} => {}) closed!", this.channel.localAddress(), this.getRemoteAddress());
@@ -281,6 +301,11 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         } else {
             this.outgoingPackets.insertSeries(weight, packets);
         }
+
+        for (EncapsulatedPacket packet : packets) {
+            this.queuedBytes += packet.getBuffer().readableBytes();
+        }
+        this.updateQueueWritability();
     }
 
     private void handleDatagram(ChannelHandlerContext ctx, RakDatagramPacket packet) {
@@ -290,7 +315,7 @@ public class RakSessionCodec extends ChannelDuplexHandler {
             metrics.rakDatagramsIn(1);
         }
 
-        this.slidingWindow.onPacketReceived(packet.getSendTime());
+        this.congestionController.onPacketReceived(packet.getSendTime());
 
         int prevSequenceIndex = this.datagramReadIndex;
         if (prevSequenceIndex <= packet.getSequenceIndex()) {
@@ -299,10 +324,12 @@ public class RakSessionCodec extends ChannelDuplexHandler {
 
         int missedDatagrams = packet.getSequenceIndex() - prevSequenceIndex;
         if (missedDatagrams > 0) {
-            this.outgoingNaks.offer(new IntRange(packet.getSequenceIndex() - missedDatagrams, packet.getSequenceIndex() - 1));
+            this.outgoingNaks.add(packet.getSequenceIndex() - missedDatagrams, packet.getSequenceIndex() - 1);
         }
 
-        this.outgoingAcks.offer(new IntRange(packet.getSequenceIndex(), packet.getSequenceIndex()));
+        // Consecutive sequence numbers are merged into a single range
+        this.outgoingAcks.add(packet.getSequenceIndex());
+        this.outgoingAckDatagrams++;
 
         for (final EncapsulatedPacket encapsulated : packet.getPackets()) {
             if (encapsulated.getReliability().isReliable()) {
@@ -371,34 +398,46 @@ public class RakSessionCodec extends ChannelDuplexHandler {
     }
 
     private void onOrderedReceived(ChannelHandlerContext ctx, EncapsulatedPacket packet) {
-        FastBinaryMinHeap<EncapsulatedPacket> binaryHeap = this.orderingHeaps[packet.getOrderingChannel()];
-        if (this.orderReadIndex[packet.getOrderingChannel()] < packet.getOrderingIndex()) {
-            // Not next in line so add to queue.
-            binaryHeap.insert(packet.getOrderingIndex(), packet.retain());
+        int orderingChannel = packet.getOrderingChannel();
+        int readIndex = this.orderReadIndex[orderingChannel];
+        SequenceRing<EncapsulatedPacket> orderingRing = this.orderingRings[orderingChannel];
+
+        if (readIndex < packet.getOrderingIndex()) {
+            // Not next in line so hold it back until the gap is filled.
+            if (packet.getOrderingIndex() - readIndex > MAX_ORDERING_WINDOW) {
+                log.debug("[{}] Ordering index {} is too far ahead of {}", this.getRemoteAddress(), packet.getOrderingIndex(), readIndex);
+                this.disconnect(RakDisconnectReason.BAD_PACKET);
+                return;
+            }
+            if (orderingRing == null) {
+                this.orderingRings[orderingChannel] = orderingRing = new SequenceRing<>(64);
+            }
+            if (orderingRing.get(packet.getOrderingIndex()) == null) {
+                orderingRing.put(packet.getOrderingIndex(), packet.retain());
+            }
             return;
-        } else if (this.orderReadIndex[packet.getOrderingChannel()] > packet.getOrderingIndex()) {
+        } else if (readIndex > packet.getOrderingIndex()) {
             // We already have this
             return;
         }
-        this.orderReadIndex[packet.getOrderingChannel()]++;
+        this.orderReadIndex[orderingChannel] = ++readIndex;
 
         // Can be handled
         ctx.fireChannelRead(packet.retain());
 
+        if (orderingRing == null || orderingRing.isEmpty()) {
+            return;
+        }
+
+        // Release packets held back for the indexes that follow until the next gap
         EncapsulatedPacket queuedPacket;
-        while ((queuedPacket = binaryHeap.peek()) != null) {
-            if (queuedPacket.getOrderingIndex() == this.orderReadIndex[packet.getOrderingChannel()]) {
-                try {
-                    // We got the expected packet
-                    binaryHeap.remove();
-                    this.orderReadIndex[packet.getOrderingChannel()]++;
-                    ctx.fireChannelRead(queuedPacket.retain());
-                } finally {
-                    queuedPacket.release();
-                }
-            } else {
-                // Found a gap. Wait till we start receive another ordered packet.
-                break;
+        // Stop if a handler closed the session, the held back packets are released by then
+        while (this.orderingRings != null && (queuedPacket = orderingRing.remove(readIndex)) != null) {
+            this.orderReadIndex[orderingChannel] = ++readIndex;
+            try {
+                ctx.fireChannelRead(queuedPacket.retain());
+            } finally {
+                queuedPacket.release();
             }
         }
     }
@@ -406,16 +445,34 @@ public class RakSessionCodec extends ChannelDuplexHandler {
     private EncapsulatedPacket getReassembledPacket(EncapsulatedPacket splitPacket, ByteBufAllocator alloc) {
         this.checkForClosed();
 
+        RakChannelConfig config = this.channel.config();
         SplitPacketHelper helper = this.splitPackets.get(splitPacket.getPartId());
+        // Bytes already charged to the pending budget for this helper
+        int size;
         if (helper == null) {
+            if (splitPacket.getPartCount() > config.getMaxSplitParts()) {
+                log.debug("[{}] Split packet has too many parts: {}", this.getRemoteAddress(), splitPacket.getPartCount());
+                this.disconnect(RakDisconnectReason.BAD_PACKET);
+                return null;
+            }
             this.splitPackets.set(splitPacket.getPartId(), helper = new SplitPacketHelper(splitPacket.getPartCount()));
+            size = 0;
+        } else {
+            size = helper.getSize();
         }
 
         // Try reassembling the packet.
-        EncapsulatedPacket result = helper.add(splitPacket, alloc);
+        EncapsulatedPacket result = helper.add(splitPacket, alloc, config.isCompositeSplitPackets());
         if (result != null) {
             // Packet reassembled. Remove the helper
+            this.pendingSplitBytes -= size;
             this.splitPackets.remove(splitPacket.getPartId(), helper);
+        } else {
+            this.pendingSplitBytes += helper.getSize() - size;
+            if (this.pendingSplitBytes > config.getMaxPendingSplitBytes()) {
+                log.debug("[{}] Too many bytes in pending split packets: {}", this.getRemoteAddress(), this.pendingSplitBytes);
+                this.disconnect(RakDisconnectReason.BAD_PACKET);
+            }
         }
 
         return result;
@@ -436,20 +493,13 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         int maxQueuedBytes = this.channel.config().getOption(RakChannelOption.RAK_MAX_QUEUED_BYTES);
 
         if (maxQueuedBytes > 0) {
-            int queuedBytes = 0;
-            try {
-                for (EncapsulatedPacket packet : this.outgoingPackets) {
-                    queuedBytes += packet.getBuffer().readableBytes();
-                    if (queuedBytes > maxQueuedBytes) {
-                        this.disconnect(RakDisconnectReason.QUEUE_TOO_LONG);
-                        return;
-                    }
-                }
-            } finally {
-                RakChannelMetrics metrics = this.getMetrics();
-                if (metrics != null) {
-                    metrics.queuedPacketBytes(queuedBytes);
-                }
+            RakChannelMetrics metrics = this.getMetrics();
+            if (metrics != null) {
+                metrics.queuedPacketBytes((int) Math.min(this.queuedBytes, Integer.MAX_VALUE));
+            }
+            if (this.queuedBytes > maxQueuedBytes) {
+                this.disconnect(RakDisconnectReason.QUEUE_TOO_LONG);
+                return;
             }
         }
 
@@ -494,13 +544,13 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         int writtenAcks = 0;
         int writtenNacks = 0;
 
-        // if (this.slidingWindow.shouldSendAcks(curTime)) {
+        // if (this.congestionController.shouldSendAcks(curTime)) {
         while (!this.outgoingAcks.isEmpty()) {
             ByteBuf buffer = ctx.alloc().ioBuffer(ackMtu);
             buffer.writeByte(FLAG_VALID | FLAG_ACK);
             writtenAcks += RakUtils.writeAckEntries(buffer, this.outgoingAcks, ackMtu - 1);
             ctx.write(buffer);
-            this.slidingWindow.onSendAck();
+            this.congestionController.onSendAck();
         }
         // }
 
@@ -522,8 +572,12 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         if (metrics != null) {
             metrics.nackOut(writtenNacks);
             metrics.ackOut(writtenAcks);
+            if (writtenAcks > 0) {
+                metrics.ackRangesOut(writtenAcks, this.outgoingAckDatagrams);
+            }
             metrics.rakStaleDatagrams(resendCount);
         }
+        this.outgoingAckDatagrams = 0;
     }
 
     private void handleIncomingAcknowledge(ChannelHandlerContext ctx, long curTime, Queue<IntRange> queue, boolean nack) {
@@ -531,10 +585,6 @@ public class RakSessionCodec extends ChannelDuplexHandler {
             return;
         }
 
-//        if (nack) {
-//            this.slidingWindow.onNak();
-//        }
-
         IntRange range;
         while ((range = queue.poll()) != null) {
             for (int i = range.start; i <= range.end; i++) {
@@ -552,7 +602,7 @@ public class RakSessionCodec extends ChannelDuplexHandler {
 
     private void onIncomingAck(RakDatagramPacket datagram, long curTime) {
         try {
-            this.slidingWindow.onAck(curTime, datagram, this.datagramReadIndex);
+            this.congestionController.onAck(curTime, datagram, this.datagramReadIndex);
         } finally {
             datagram.release();
         }
@@ -563,40 +613,49 @@ public class RakSessionCodec extends ChannelDuplexHandler {
             log.trace("NAK'ed datagram {} from {}", datagram.getSequenceIndex(), this.getRemoteAddress());
         }
 
-        this.slidingWindow.onNak(); // TODO: verify this
+        // Called per missing datagram, the controller decides whether loss means congestion
+        this.congestionController.onNak();
         this.sendDatagram(ctx, datagram, curTime);
     }
 
     private int sendStaleDatagrams(ChannelHandlerContext ctx, long curTime) {
-        if (this.sentDatagrams.isEmpty()) {
-            return 0;
-        }
-
         boolean hasResent = false;
         int resendCount = 0;
-        int transmissionBandwidth = this.slidingWindow.getRetransmissionBandwidth();
+        int transmissionBandwidth = this.congestionController.getRetransmissionBandwidth();
+
+        int sequenceIndex;
+        while ((sequenceIndex = this.resendWheel.poll(curTime)) != IntTimerWheel.NONE) {
+            RakDatagramPacket datagram = this.sentDatagrams.get(sequenceIndex);
+            if (datagram == null) {
+                // Already acknowledged or resent under a newer sequence number
+                continue;
+            }
+            if (datagram.getNextSend() > curTime) {
+                // Deadline was beyond the wheel span
+                this.resendWheel.add(sequenceIndex, datagram.getNextSend());
+                continue;
+            }
 
-        for (RakDatagramPacket datagram : this.sentDatagrams.values()) {
-            if (datagram.getNextSend() <= curTime) {
-                int size = datagram.getSize();
-                if (transmissionBandwidth < size) {
-                    break;
-                }
-                transmissionBandwidth -= size;
+            int size = datagram.getSize();
+            if (transmissionBandwidth < size) {
+                // Retry on the next tick
+                this.resendWheel.add(sequenceIndex, curTime);
+                break;
+            }
+            transmissionBandwidth -= size;
 
-                if (!hasResent) {
-                    hasResent = true;
-                }
-                if (log.isTraceEnabled()) {
-                    log.trace("Stale datagram {} from {}", datagram.getSequenceIndex(), this.getRemoteAddress());
-                }
-                resendCount++;
-                this.sendDatagram(ctx, datagram, curTime);
+            if (!hasResent) {
+                hasResent = true;
+            }
+            if (log.isTraceEnabled()) {
+                log.trace("Stale datagram {} from {}", datagram.getSequenceIndex(), this.getRemoteAddress());
             }
+            resendCount++;
+            this.sendDatagram(ctx, datagram, curTime);
         }
 
         if (hasResent) {
-            this.slidingWindow.onResend(curTime);
+            this.congestionController.onResend(curTime);
         }
 
         return resendCount;
@@ -607,7 +666,7 @@ public class RakSessionCodec extends ChannelDuplexHandler {
             return;
         }
 
-        int transmissionBandwidth = this.slidingWindow.getTransmissionBandwidth();
+        int transmissionBandwidth = this.congestionController.getTransmissionBandwidth();
         RakDatagramPacket datagram = RakDatagramPacket.newInstance();
         datagram.setSendTime(curTime);
         EncapsulatedPacket packet;
@@ -620,6 +679,7 @@ public class RakSessionCodec extends ChannelDuplexHandler {
 
             transmissionBandwidth -= size;
             this.outgoingPackets.remove();
+            this.queuedBytes -= packet.getBuffer().readableBytes();
 
             // Send full datagram
             if (!datagram.tryAddPacket(packet, mtuSize)) {
@@ -636,6 +696,25 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         if (!datagram.getPackets().isEmpty()) {
             this.sendDatagram(ctx, datagram, curTime);
         }
+        this.updateQueueWritability();
+    }
+
+    /**
+     * Marks the channel unwritable once the queued bytes exceed the high water mark and writable again once they
+     * drop below the low water mark. The outbound buffer fires {@code channelWritabilityChanged} on every change.
+     */
+    private void updateQueueWritability() {
+        WriteBufferWaterMark waterMark = this.channel.config().getQueuedBytesWaterMark();
+        boolean writable = this.queueWritable ? this.queuedBytes <= waterMark.high() : this.queuedBytes < waterMark.low();
+        if (writable == this.queueWritable) {
+            return;
+        }
+        this.queueWritable = writable;
+
+        ChannelOutboundBuffer buffer = this.channel.unsafe().outboundBuffer();
+        if (buffer != null) {
+            buffer.setUserDefinedWritability(QUEUE_WRITABILITY_INDEX, writable);
+        }
     }
 
     private void sendImmediate(ChannelHandlerContext ctx, EncapsulatedPacket[] packets) {
@@ -674,13 +753,14 @@ public class RakSessionCodec extends ChannelDuplexHandler {
         for (EncapsulatedPacket packet : datagram.getPackets()) {
             // Check if packet is reliable so it can be resent later if a NAK is received.
             if (packet.getReliability().isReliable()) {
-                datagram.setNextSend(time + this.slidingWindow.getRtoForRetransmission());
+                datagram.setNextSend(time + this.congestionController.getRtoForRetransmission());
                 if (oldIndex == -1) {
-                    this.slidingWindow.onReliableSend(datagram);
+                    this.congestionController.onReliableSend(datagram);
                 } else {
                     this.sentDatagrams.remove(oldIndex, datagram);
                 }
                 this.sentDatagrams.put(datagram.getSequenceIndex(), datagram.retain()); // Keep for resending
+                this.resendWheel.add(datagram.getSequenceIndex(), datagram.getNextSend());
                 break;
             }
         }
@@ -885,7 +965,7 @@ public class RakSessionCodec extends ChannelDuplexHandler {
     }
 
     public double getRTT() {
-        return this.slidingWindow.getRTT();
+        return this.congestionController.getRTT();
     }
 
     public int getMtu() {
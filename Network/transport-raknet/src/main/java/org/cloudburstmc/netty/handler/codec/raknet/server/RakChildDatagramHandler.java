@@ -17,6 +17,7 @@
 package org.cloudburstmc.netty.handler.codec.raknet.server;
 
 import org.cloudburstmc.netty.channel.raknet.RakChildChannel;
+import org.cloudburstmc.netty.channel.raknet.RakServerChannel;
 import org.cloudburstmc.netty.channel.raknet.config.RakChannelMetrics;
 
 import java.nio.channels.ClosedChannelException;
@@ -33,7 +34,7 @@ public class RakChildDatagramHandler extends ChannelOutboundHandlerAdapter {
 
     public static final String NAME = "rak-child-datagram-handler";
     private final RakChildChannel channel;
-    private volatile boolean canFlush = false;
+    private int pendingDatagrams;
 
     public RakChildDatagramHandler(RakChildChannel channel) {
         this.channel = channel;
@@ -47,7 +48,7 @@ public class RakChildDatagramHandler extends ChannelOutboundHandlerAdapter {
             return;
         }
 
-        this.canFlush = true;
+        this.pendingDatagrams++;
         promise.trySuccess();
         DatagramPacket datagram = isDatagram ? (DatagramPacket) msg :
                 new DatagramPacket((ByteBuf) msg, this.channel.remoteAddress(), this.channel.localAddress());
@@ -69,9 +70,10 @@ public class RakChildDatagramHandler extends ChannelOutboundHandlerAdapter {
 
     @Override
     public void flush(ChannelHandlerContext ctx) throws Exception {
-        if (this.canFlush) {
-            this.canFlush = false;
-            ctx.flush();
+        if (this.pendingDatagrams > 0) {
+            // The parent decides when the socket is flushed so datagrams of many sessions leave together
+            ((RakServerChannel) this.channel.parent()).flushDatagrams(this.pendingDatagrams);
+            this.pendingDatagrams = 0;
         }
     }
 }
@@ -17,7 +17,9 @@
 package org.cloudburstmc.netty.handler.codec.raknet.server;
 
 import org.cloudburstmc.netty.channel.raknet.RakServerChannel;
+import org.cloudburstmc.netty.channel.raknet.config.RakServerChannelConfig;
 import org.cloudburstmc.netty.channel.raknet.config.RakServerMetrics;
+import org.cloudburstmc.netty.util.TokenBucketTable;
 
 import java.net.InetAddress;
 import java.util.Collection;
@@ -26,8 +28,6 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -36,18 +36,31 @@ import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
+/**
+ * Limits the datagrams each address and the whole server may send per RakNet tick.
+ * <p>
+ * Every address gets a token bucket that refills {@link RakServerChannelConfig#getPacketLimit()} tokens per tick up
+ * to {@link RakServerChannelConfig#getPacketBurst()}, addresses that run out are blocked for 10 seconds. Buckets live
+ * in a fixed size {@link TokenBucketTable}, so a flood of packets from many addresses does not allocate. The buckets
+ * refill from a timestamp updated every tick, or from the clock on every packet if lazy refill is enabled.
+ */
 public class RakServerRateLimiter extends SimpleChannelInboundHandler<DatagramPacket> {
     public static final String NAME = "rak-server-rate-limiter";
     private static final InternalLogger log = InternalLoggerFactory.getInstance(RakServerRateLimiter.class);
 
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int BUCKET_TABLE_SIZE = 8192;
+
     private final RakServerChannel channel;
 
-    private final ConcurrentHashMap<InetAddress, AtomicInteger> rateLimitMap = new ConcurrentHashMap<>();
+    private final TokenBucketTable buckets = new TokenBucketTable(BUCKET_TABLE_SIZE);
     private final Map<InetAddress, Long> blockedConnections = new ConcurrentHashMap<>();
 
     private final Collection<InetAddress> exceptions = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
-    private final AtomicLong globalCounter = new AtomicLong(0);
+    // Arrival time of the bucket shared by all addresses
+    private long globalArrivalTime = Long.MIN_VALUE;
+    private long tickTime;
 
     private ScheduledFuture<?> tickFuture;
     private ScheduledFuture<?> blockedTickFuture;
@@ -58,20 +71,38 @@ public class RakServerRateLimiter extends SimpleChannelInboundHandler<DatagramPa
 
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
-        this.tickFuture = ctx.channel().eventLoop().scheduleAtFixedRate(this::onRakTick, 10, 10, TimeUnit.MILLISECONDS);
         this.blockedTickFuture = ctx.channel().eventLoop().scheduleAtFixedRate(this::onBlockedTick, 100, 100, TimeUnit.MILLISECONDS);
     }
 
     @Override
     public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
-        this.tickFuture.cancel(false);
+        if (this.tickFuture != null) {
+            this.tickFuture.cancel(false);
+            this.tickFuture = null;
+        }
         this.blockedTickFuture.cancel(true);
-        this.rateLimitMap.clear();
+        this.buckets.clear();
     }
 
     private void onRakTick() {
-        this.rateLimitMap.clear();
-        this.globalCounter.set(0);
+        this.tickTime = System.nanoTime();
+    }
+
+    private long currentTime(ChannelHandlerContext ctx) {
+        if (this.channel.config().isLazyRateLimitRefill()) {
+            if (this.tickFuture != null) {
+                this.tickFuture.cancel(false);
+                this.tickFuture = null;
+            }
+            return System.nanoTime();
+        }
+
+        // Options are applied after the handler is added, so the tick task is started by the first packet
+        if (this.tickFuture == null) {
+            this.tickTime = System.nanoTime();
+            this.tickFuture = ctx.channel().eventLoop().scheduleAtFixedRate(this::onRakTick, 10, 10, TimeUnit.MILLISECONDS);
+        }
+        return this.tickTime;
     }
 
     private void onBlockedTick() {
@@ -132,21 +163,34 @@ public class RakServerRateLimiter extends SimpleChannelInboundHandler<DatagramPa
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket datagram) throws Exception {
-        if (this.globalCounter.incrementAndGet() > this.channel.config().getGlobalPacketLimit()) {
+        RakServerChannelConfig config = this.channel.config();
+        long now = this.currentTime(ctx);
+
+        int globalLimit = config.getGlobalPacketLimit();
+        if (globalLimit <= 0) {
+            // A limit of 0 lets nothing through
+            return;
+        }
+        long globalInterval = Math.max(TICK_NANOS / globalLimit, 1);
+        long globalArrivalTime = Math.max(this.globalArrivalTime, now);
+        if (globalArrivalTime - now > (globalLimit - 1) * globalInterval) {
             if (log.isTraceEnabled()) {
-                log.trace("[{}] Dropped incoming packet because global packet limit was reached: {}", datagram.sender(), this.globalCounter.get());
+                log.trace("[{}] Dropped incoming packet because global packet limit was reached", datagram.sender());
             }
             return;
         }
+        this.globalArrivalTime = globalArrivalTime + globalInterval;
 
         InetAddress address = datagram.sender().getAddress();
         if (this.blockedConnections.containsKey(address)) {
             return;
         }
 
-        AtomicInteger counter = this.rateLimitMap.computeIfAbsent(address, a -> new AtomicInteger());
-        if (counter.incrementAndGet() > this.channel.config().getPacketLimit() &&
-                this.blockAddress(address, 10, TimeUnit.SECONDS)) {
+        int limit = config.getPacketLimit();
+        // A limit of 0 blocks every address that is not an exception, like a limit that was reached
+        boolean acquired = limit > 0 &&
+                this.buckets.tryAcquire(address, now, Math.max(TICK_NANOS / limit, 1), config.getPacketBurst());
+        if (!acquired && this.blockAddress(address, 10, TimeUnit.SECONDS)) {
             log.warn("[{}] Blocked because packet limit was reached", address);
         } else {
             ctx.fireChannelRead(datagram.retain());
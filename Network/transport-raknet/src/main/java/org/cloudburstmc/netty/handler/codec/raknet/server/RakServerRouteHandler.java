@@ -19,6 +19,7 @@ package org.cloudburstmc.netty.handler.codec.raknet.server;
 import org.cloudburstmc.netty.channel.raknet.RakChildChannel;
 import org.cloudburstmc.netty.channel.raknet.RakServerChannel;
 import org.cloudburstmc.netty.channel.raknet.config.RakChannelMetrics;
+import org.cloudburstmc.netty.channel.raknet.config.RakServerMetrics;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelDuplexHandler;
@@ -29,6 +30,7 @@ public class RakServerRouteHandler extends ChannelDuplexHandler {
 
     public static final String NAME = "rak-server-route-handler";
     private final RakServerChannel parent;
+    private int readDatagrams;
 
     public RakServerRouteHandler(RakServerChannel parent) {
         this.parent = parent;
@@ -41,6 +43,7 @@ public class RakServerRouteHandler extends ChannelDuplexHandler {
             return;
         }
         DatagramPacket packet = (DatagramPacket) msg;
+        this.readDatagrams++;
 
         try {
             RakChildChannel channel = this.parent.getChildChannel(packet.sender());
@@ -63,4 +66,17 @@ public class RakServerRouteHandler extends ChannelDuplexHandler {
             packet.release();
         }
     }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        int datagrams = this.readDatagrams;
+        if (datagrams > 0) {
+            this.readDatagrams = 0;
+            RakServerMetrics metrics = this.parent.config().getMetrics();
+            if (metrics != null) {
+                metrics.datagramBatchIn(datagrams);
+            }
+        }
+        ctx.fireChannelReadComplete();
+    }
 }
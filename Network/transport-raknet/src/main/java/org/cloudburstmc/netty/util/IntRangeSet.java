@@ -0,0 +1,174 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.util;
+
+/**
+ * Sorted set of disjoint, non-adjacent int ranges backed by primitive arrays.
+ * <p>
+ * Values are merged into the existing ranges as they are added, so a run of consecutive values is stored as a
+ * single range. Appending at the end, the common case for sequence numbers, is constant time; values arriving
+ * out of order are placed with a binary search. Ranges are consumed from the lowest one with {@link #getFirstStart()},
+ * {@link #getFirstEnd()} and {@link #removeFirst()}. Nothing is allocated unless the arrays need to grow.
+ */
+public class IntRangeSet {
+
+    private int[] starts;
+    private int[] ends;
+    private int head;
+    private int tail;
+
+    public IntRangeSet() {
+        this(16);
+    }
+
+    public IntRangeSet(int initialCapacity) {
+        initialCapacity = Math.max(initialCapacity, 4);
+        this.starts = new int[initialCapacity];
+        this.ends = new int[initialCapacity];
+    }
+
+    public void add(int value) {
+        this.add(value, value);
+    }
+
+    /**
+     * @param start first value of the range, inclusive
+     * @param end   last value of the range, inclusive
+     */
+    public void add(int start, int end) {
+        if (start > end) {
+            throw new IllegalArgumentException("start " + start + " is greater than end " + end);
+        }
+
+        if (this.head == this.tail) {
+            this.head = this.tail = 0;
+            this.insert(0, start, end);
+            return;
+        }
+
+        int last = this.tail - 1;
+        if (start > this.ends[last]) {
+            if (start - 1 == this.ends[last]) {
+                this.ends[last] = end;
+            } else {
+                this.insert(this.tail, start, end);
+            }
+            return;
+        }
+
+        // First range that ends at or after start - 1, it is either merged with or placed after the new range
+        int low = this.head;
+        int high = last;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.ends[mid] < (long) start - 1) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        if (this.starts[low] > (long) end + 1) {
+            this.insert(low, start, end);
+            return;
+        }
+
+        // Merge with every range the new one overlaps or touches
+        int mergedEnd = Math.max(end, this.ends[low]);
+        int next = low + 1;
+        while (next < this.tail && this.starts[next] - 1L <= mergedEnd) {
+            mergedEnd = Math.max(mergedEnd, this.ends[next]);
+            next++;
+        }
+        this.starts[low] = Math.min(start, this.starts[low]);
+        this.ends[low] = mergedEnd;
+
+        int removed = next - low - 1;
+        if (removed > 0) {
+            System.arraycopy(this.starts, next, this.starts, low + 1, this.tail - next);
+            System.arraycopy(this.ends, next, this.ends, low + 1, this.tail - next);
+            this.tail -= removed;
+        }
+    }
+
+    private void insert(int index, int start, int end) {
+        if (this.tail == this.starts.length) {
+            int size = this.tail - this.head;
+            if (this.head > size) {
+                // Reuse the space of consumed ranges
+                System.arraycopy(this.starts, this.head, this.starts, 0, size);
+                System.arraycopy(this.ends, this.head, this.ends, 0, size);
+            } else {
+                int[] starts = new int[this.starts.length << 1];
+                int[] ends = new int[this.ends.length << 1];
+                System.arraycopy(this.starts, this.head, starts, 0, size);
+                System.arraycopy(this.ends, this.head, ends, 0, size);
+                this.starts = starts;
+                this.ends = ends;
+            }
+            index -= this.head;
+            this.head = 0;
+            this.tail = size;
+        }
+
+        if (index < this.tail) {
+            System.arraycopy(this.starts, index, this.starts, index + 1, this.tail - index);
+            System.arraycopy(this.ends, index, this.ends, index + 1, this.tail - index);
+        }
+        this.starts[index] = start;
+        this.ends[index] = end;
+        this.tail++;
+    }
+
+    public int getFirstStart() {
+        this.checkNotEmpty();
+        return this.starts[this.head];
+    }
+
+    public int getFirstEnd() {
+        this.checkNotEmpty();
+        return this.ends[this.head];
+    }
+
+    public void removeFirst() {
+        this.checkNotEmpty();
+        if (++this.head == this.tail) {
+            this.head = this.tail = 0;
+        }
+    }
+
+    /**
+     * @return number of ranges
+     */
+    public int size() {
+        return this.tail - this.head;
+    }
+
+    public boolean isEmpty() {
+        return this.head == this.tail;
+    }
+
+    public void clear() {
+        this.head = this.tail = 0;
+    }
+
+    private void checkNotEmpty() {
+        if (this.head == this.tail) {
+            throw new IllegalStateException("Range set is empty");
+        }
+    }
+}
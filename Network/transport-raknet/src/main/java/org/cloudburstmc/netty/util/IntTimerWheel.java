@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.util;
+
+/**
+ * Hashed timer wheel holding primitive int values by deadline.
+ * <p>
+ * Deadlines are rounded up into slots of {@code tickMillis}. Polling only visits the slots between the last polled
+ * tick and the current time, so the cost of a poll does not depend on the number of values waiting for later
+ * deadlines. Deadlines that already passed go into the slot of the last poll. Values within a slot are returned in insertion order. Deadlines further away than the wheel span
+ * are put in the last slot of the span and may therefore be returned early; callers have to check the real
+ * deadline of the value and schedule it again if it is not due yet.
+ * <p>
+ * Values are never removed eagerly. Callers are expected to skip values that no longer refer to anything when
+ * they are polled.
+ */
+public class IntTimerWheel {
+
+    public static final int NONE = Integer.MIN_VALUE;
+
+    private final long tickMillis;
+    private final int mask;
+    private final int[][] slots;
+    private final int[] heads;
+    private final int[] tails;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis length of a slot in milliseconds
+     * @param wheelSize  number of slots, rounded up to a power of two
+     * @param now        current time in milliseconds
+     */
+    public IntTimerWheel(long tickMillis, int wheelSize, long now) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        wheelSize = RakUtils.powerOfTwoCeiling(wheelSize);
+
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.slots = new int[wheelSize][];
+        this.heads = new int[wheelSize];
+        this.tails = new int[wheelSize];
+        this.currentTick = now / tickMillis;
+    }
+
+    /**
+     * @param value    any value except {@link #NONE}
+     * @param deadline time in milliseconds at which the value becomes due
+     */
+    public void add(int value, long deadline) {
+        // Round up, so every value returned from a slot that was not clamped is actually due
+        long tick = (deadline + this.tickMillis - 1) / this.tickMillis;
+        if (tick < this.currentTick) {
+            tick = this.currentTick;
+        } else if (tick - this.currentTick > this.mask) {
+            tick = this.currentTick + this.mask;
+        }
+
+        int idx = (int) (tick & this.mask);
+        int[] slot = this.slots[idx];
+        int tail = this.tails[idx];
+        if (slot == null) {
+            slot = this.slots[idx] = new int[8];
+        } else if (tail == slot.length) {
+            int head = this.heads[idx];
+            if (head > slot.length >> 1) {
+                // Reuse the space of already polled values
+                System.arraycopy(slot, head, slot, 0, tail - head);
+            } else {
+                int[] grown = new int[slot.length << 1];
+                System.arraycopy(slot, head, grown, 0, tail - head);
+                slot = this.slots[idx] = grown;
+            }
+            tail -= head;
+            this.heads[idx] = 0;
+        }
+
+        slot[tail] = value;
+        this.tails[idx] = tail + 1;
+        this.size++;
+    }
+
+    /**
+     * @param now current time in milliseconds
+     * @return the next value with a deadline of at most {@code now} or {@link #NONE} if nothing is due
+     */
+    public int poll(long now) {
+        long nowTick = now / this.tickMillis;
+        if (this.size == 0) {
+            // Nothing to visit, skip idle slots
+            this.currentTick = Math.max(this.currentTick, nowTick);
+            return NONE;
+        }
+
+        while (this.currentTick <= nowTick) {
+            int idx = (int) (this.currentTick & this.mask);
+            int head = this.heads[idx];
+            if (head < this.tails[idx]) {
+                int value = this.slots[idx][head++];
+                if (head == this.tails[idx]) {
+                    this.heads[idx] = 0;
+                    this.tails[idx] = 0;
+                } else {
+                    this.heads[idx] = head;
+                }
+                this.size--;
+                return value;
+            }
+
+            if (this.currentTick == nowTick) {
+                break;
+            }
+            this.currentTick++;
+        }
+        return NONE;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i <= this.mask; i++) {
+            this.heads[i] = 0;
+            this.tails[i] = 0;
+        }
+        this.size = 0;
+    }
+}
@@ -177,6 +177,41 @@ public class RakUtils {
         return count;
     }
 
+    /**
+     * Writes as many ranges of the set as fit into the given size and removes them from the set.
+     *
+     * @return number of written ranges
+     */
+    public static int writeAckEntries(ByteBuf buffer, IntRangeSet ackRanges, int mtu) {
+        int startIndex = buffer.writerIndex();
+        buffer.writeZero(2);
+        mtu -= 2; // Skip entries size (short)
+
+        int count = 0;
+        while (!ackRanges.isEmpty()) {
+            int start = ackRanges.getFirstStart();
+            int end = ackRanges.getFirstEnd();
+            boolean singleton = start == end;
+            int size = singleton ? 4 : 7;
+            if (mtu < size) {
+                break;
+            }
+
+            count++;
+            mtu -= size;
+
+            buffer.writeBoolean(singleton);
+            buffer.writeMediumLE(start);
+            if (!singleton) {
+                buffer.writeMediumLE(end);
+            }
+            ackRanges.removeFirst();
+        }
+
+        buffer.setShort(startIndex, count);
+        return count;
+    }
+
     public static int clamp(int value, int low, int high) {
         return value < low ? low : value > high ? high : value;
     }
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Map from sequence numbers to elements backed by a power of two array indexed by {@code sequence & mask}.
+ * <p>
+ * Meant for keys that are handed out incrementally and removed roughly in order, such as datagram sequence
+ * numbers. Lookups are constant time without boxing. If a new key maps to a slot that is still held by another
+ * key, the array is doubled, so the capacity follows the largest window of live keys. Unlike
+ * {@link RoundRobinArray} elements are never released by this class.
+ */
+public class SequenceRing<E> {
+
+    private Object[] elements;
+    private int[] keys;
+    private int mask;
+    private int size;
+
+    public SequenceRing(int initialCapacity) {
+        initialCapacity = RakUtils.powerOfTwoCeiling(Math.max(initialCapacity, 2));
+
+        this.elements = new Object[initialCapacity];
+        this.keys = new int[initialCapacity];
+        this.mask = initialCapacity - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int key) {
+        int idx = key & this.mask;
+        if (this.keys[idx] != key) {
+            return null;
+        }
+        return (E) this.elements[idx];
+    }
+
+    /**
+     * @throws IllegalStateException if the key is already mapped
+     */
+    public void put(int key, E value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+
+        int idx = key & this.mask;
+        while (this.elements[idx] != null) {
+            if (this.keys[idx] == key) {
+                throw new IllegalStateException("Sequence " + key + " is already mapped");
+            }
+            this.grow();
+            idx = key & this.mask;
+        }
+
+        this.elements[idx] = value;
+        this.keys[idx] = key;
+        this.size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E remove(int key) {
+        int idx = key & this.mask;
+        Object element = this.elements[idx];
+        if (element == null || this.keys[idx] != key) {
+            return null;
+        }
+        this.elements[idx] = null;
+        this.size--;
+        return (E) element;
+    }
+
+    /**
+     * Removes the key only if it is still mapped to the given element.
+     *
+     * @return true if the mapping was removed
+     */
+    public boolean remove(int key, E expected) {
+        int idx = key & this.mask;
+        if (this.elements[idx] != expected || expected == null || this.keys[idx] != key) {
+            return false;
+        }
+        this.elements[idx] = null;
+        this.size--;
+        return true;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int capacity() {
+        return this.elements.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> consumer) {
+        Object[] elements = this.elements;
+        for (Object element : elements) {
+            if (element != null) {
+                consumer.accept((E) element);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(this.elements, null);
+        this.size = 0;
+    }
+
+    private void grow() {
+        Object[] oldElements = this.elements;
+        int[] oldKeys = this.keys;
+
+        int capacity = oldElements.length << 1;
+        if (capacity <= 0) {
+            throw new IllegalStateException("Sequence ring cannot grow any further");
+        }
+
+        // Doubling the array only adds one bit to the mask, so previously distinct slots never collide.
+        this.elements = new Object[capacity];
+        this.keys = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < oldElements.length; i++) {
+            if (oldElements[i] != null) {
+                int idx = oldKeys[i] & this.mask;
+                this.elements[idx] = oldElements[i];
+                this.keys[idx] = oldKeys[i];
+            }
+        }
+    }
+}
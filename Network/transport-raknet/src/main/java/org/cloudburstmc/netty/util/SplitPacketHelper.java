@@ -22,14 +22,26 @@ import java.util.Objects;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.util.AbstractReferenceCounted;
 import io.netty.util.IllegalReferenceCountException;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ReferenceCounted;
 
+/**
+ * Collects the parts of a split packet until all of them arrived.
+ * <p>
+ * Completion is tracked with a counter of received parts, so adding a part is constant time. The reassembled
+ * buffer is either a copy of all parts in one contiguous buffer or a {@link CompositeByteBuf} over the received
+ * part buffers, which saves the copy for consumers that can read composite buffers.
+ */
 public class SplitPacketHelper extends AbstractReferenceCounted {
+    // Upper bound of one array slot, charged so announcing many parts costs budget before any part arrives
+    private static final int PART_REFERENCE_BYTES = 8;
+
     private final EncapsulatedPacket[] packets;
-    private final long created = System.currentTimeMillis();
+    private int received;
+    private int size;
 
     public SplitPacketHelper(long expectedLength) {
         if (expectedLength < 2) {
@@ -39,6 +51,14 @@ public class SplitPacketHelper extends AbstractReferenceCounted {
     }
 
     public EncapsulatedPacket add(EncapsulatedPacket packet, ByteBufAllocator alloc) {
+        return this.add(packet, alloc, false);
+    }
+
+    /**
+     * @param composite whether to return the parts as a {@link CompositeByteBuf} instead of copying them
+     * @return the reassembled packet or null if parts are missing
+     */
+    public EncapsulatedPacket add(EncapsulatedPacket packet, ByteBufAllocator alloc, boolean composite) {
         Objects.requireNonNull(packet, "packet cannot be null");
         if (!packet.isSplit()) throw new IllegalArgumentException("Packet is not split");
         if (this.refCnt() <= 0) throw new IllegalReferenceCountException(this.refCnt());
@@ -54,30 +74,35 @@ public class SplitPacketHelper extends AbstractReferenceCounted {
         }
         // Retain the packet so it can be reassembled later.
         this.packets[partIndex] = packet.retain();
-
-        int sz = 0;
-        for (EncapsulatedPacket netPacket : this.packets) {
-            if (netPacket == null) {
-                return null;
-            }
-            sz += netPacket.getBuffer().readableBytes();
+        this.size += packet.getBuffer().readableBytes();
+        if (++this.received < this.packets.length) {
+            return null;
         }
 
-        // We can't use a composite buffer as the native code will choke on it
-        ByteBuf reassembled = alloc.ioBuffer(sz);
-        for (EncapsulatedPacket netPacket : this.packets) {
-            ByteBuf buf = netPacket.getBuffer();
-            reassembled.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+        ByteBuf reassembled;
+        if (composite) {
+            CompositeByteBuf buffer = alloc.compositeBuffer(this.packets.length);
+            for (EncapsulatedPacket netPacket : this.packets) {
+                buffer.addComponent(true, netPacket.getBuffer().retain());
+            }
+            reassembled = buffer;
+        } else {
+            // Native code like the zlib and snappy bindings can only read a single memory region
+            reassembled = alloc.ioBuffer(this.size);
+            for (EncapsulatedPacket netPacket : this.packets) {
+                ByteBuf buf = netPacket.getBuffer();
+                reassembled.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+            }
         }
 
         return packet.fromSplit(reassembled);
     }
 
-    public boolean expired() {
-        // If we're waiting on a split packet for more than 30 seconds, the client on the other end is either severely
-        // lagging, or has died.
-        if (this.refCnt() <= 0) throw new IllegalReferenceCountException(this.refCnt());
-        return System.currentTimeMillis() - created >= 30000;
+    /**
+     * @return number of bytes held by the parts received so far and the part array
+     */
+    public int getSize() {
+        return this.size + this.packets.length * PART_REFERENCE_BYTES;
     }
 
     @Override
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty.util;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.Arrays;
+
+/**
+ * Fixed size table of token buckets keyed on IP addresses, stored in primitive arrays with open addressing.
+ * <p>
+ * Each bucket is a single timestamp, the theoretical arrival time of the generic cell rate algorithm, which behaves
+ * like a token bucket that refills one token every {@code interval} nanoseconds up to {@code burst} tokens. A bucket
+ * that has refilled completely holds no state, so its slot is reused by the next address that needs one and the
+ * table never grows or allocates. If every slot within the probe distance is still in use the bucket closest to
+ * refilling is evicted.
+ * <p>
+ * IPv4 addresses are stored as IPv4-mapped IPv6 addresses. Looking up an IPv4 address does not allocate, an IPv6
+ * address costs one copy of its bytes. Not thread safe.
+ */
+public class TokenBucketTable {
+
+    private static final int MAX_PROBES = 16;
+
+    private final long[] highKeys;
+    private final long[] lowKeys;
+    private final long[] arrivalTimes;
+    private final boolean[] used;
+    private final int mask;
+
+    public TokenBucketTable(int capacity) {
+        capacity = RakUtils.powerOfTwoCeiling(Math.max(capacity, MAX_PROBES));
+
+        this.highKeys = new long[capacity];
+        this.lowKeys = new long[capacity];
+        this.arrivalTimes = new long[capacity];
+        this.used = new boolean[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Takes one token from the bucket of the address.
+     *
+     * @param now      current time in nanoseconds
+     * @param interval nanoseconds it takes to refill one token
+     * @param burst    maximum number of tokens in a bucket
+     * @return false if the bucket is empty
+     */
+    public boolean tryAcquire(InetAddress address, long now, long interval, int burst) {
+        if (address instanceof Inet4Address) {
+            // Inet4Address hashes to its address, which avoids the array copy of getAddress()
+            return this.tryAcquire(0, 0xFFFF_0000_0000L | (address.hashCode() & 0xFFFF_FFFFL), now, interval, burst);
+        }
+
+        byte[] bytes = address.getAddress();
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 8; i++) {
+            high = (high << 8) | (bytes[i] & 0xFF);
+            low = (low << 8) | (bytes[i + 8] & 0xFF);
+        }
+        return this.tryAcquire(high, low, now, interval, burst);
+    }
+
+    /**
+     * Takes one token from the bucket of the 128-bit key.
+     *
+     * @see #tryAcquire(InetAddress, long, long, int)
+     */
+    public boolean tryAcquire(long high, long low, long now, long interval, int burst) {
+        int start = hash(high, low) & this.mask;
+        int free = -1;
+        int oldest = start;
+
+        for (int i = 0; i < MAX_PROBES; i++) {
+            int idx = (start + i) & this.mask;
+            if (!this.used[idx]) {
+                // Slots are never emptied, so the key can not be stored after an unused one
+                if (free == -1) {
+                    free = idx;
+                }
+                break;
+            }
+
+            if (this.highKeys[idx] == high && this.lowKeys[idx] == low) {
+                return this.acquire(idx, now, interval, burst);
+            }
+
+            if (this.arrivalTimes[idx] - now <= 0) {
+                if (free == -1) {
+                    free = idx;
+                }
+            } else if (this.arrivalTimes[idx] - this.arrivalTimes[oldest] < 0) {
+                oldest = idx;
+            }
+        }
+
+        int idx = free == -1 ? oldest : free;
+        this.used[idx] = true;
+        this.highKeys[idx] = high;
+        this.lowKeys[idx] = low;
+        this.arrivalTimes[idx] = now;
+        return this.acquire(idx, now, interval, burst);
+    }
+
+    private boolean acquire(int idx, long now, long interval, int burst) {
+        long arrivalTime = this.arrivalTimes[idx];
+        if (arrivalTime - now < 0) {
+            arrivalTime = now;
+        }
+
+        // The bucket is empty once the arrival time is a whole burst ahead of now
+        if (arrivalTime - now > (burst - 1) * interval) {
+            return false;
+        }
+        this.arrivalTimes[idx] = arrivalTime + interval;
+        return true;
+    }
+
+    public int capacity() {
+        return this.used.length;
+    }
+
+    public void clear() {
+        Arrays.fill(this.used, false);
+    }
+
+    private static int hash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L ^ low;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty;
+
+import io.netty.buffer.Unpooled;
+import org.cloudburstmc.netty.channel.raknet.RakBbrCongestionController;
+import org.cloudburstmc.netty.channel.raknet.RakCongestionController;
+import org.cloudburstmc.netty.channel.raknet.RakReliability;
+import org.cloudburstmc.netty.channel.raknet.packet.EncapsulatedPacket;
+import org.cloudburstmc.netty.channel.raknet.packet.RakDatagramPacket;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Random;
+
+public class CongestionControllerTests {
+
+    private static final int MTU = 1400;
+    private static final long TICK = 10;
+    private static final long RTT = 40;
+    private static final int LINK_BYTES_PER_TICK = 16 * 1024;
+
+    @Test
+    public void testBbrKeepsThroughputUnderRandomLoss() {
+        RakCongestionController controller = RakCongestionController.Factory.BBR.create(MTU);
+        long delivered = simulate(controller, 0.05, 10_000);
+
+        double utilization = delivered / (LINK_BYTES_PER_TICK * (10_000D / TICK));
+        Assertions.assertTrue(utilization > 0.8, "Link utilization too low: " + utilization);
+
+        RakBbrCongestionController bbr = (RakBbrCongestionController) controller;
+        Assertions.assertEquals(RTT, bbr.getMinRtt(), TICK);
+        Assertions.assertTrue(bbr.getBandwidth() > LINK_BYTES_PER_TICK * (1000D / TICK) * 0.8,
+                "Bandwidth underestimated: " + bbr.getBandwidth());
+    }
+
+    @Test
+    public void testBbrIgnoresResends() {
+        RakCongestionController controller = RakCongestionController.Factory.BBR.create(MTU);
+        simulate(controller, 0, 2_000);
+
+        int bandwidth = controller.getTransmissionBandwidth() + controller.getUnackedBytes();
+        controller.onNak();
+        controller.onResend(2_000);
+        Assertions.assertEquals(bandwidth, controller.getTransmissionBandwidth() + controller.getUnackedBytes());
+    }
+
+    /**
+     * Sends as much as the controller allows over a link with fixed capacity and delay. Lost datagrams are
+     * NAK'ed one RTT later and queued again.
+     *
+     * @return number of acknowledged bytes
+     */
+    private static long simulate(RakCongestionController controller, double loss, long duration) {
+        Random random = new Random(1);
+        Queue<RakDatagramPacket> link = new ArrayDeque<>();
+        Queue<Object[]> feedback = new ArrayDeque<>(); // [time, datagram, lost]
+        int sequenceIndex = 0;
+        long delivered = 0;
+
+        for (long time = 0; time < duration; time += TICK) {
+            Object[] event;
+            while ((event = feedback.peek()) != null && (long) event[0] <= time) {
+                feedback.remove();
+                RakDatagramPacket datagram = (RakDatagramPacket) event[1];
+                if ((boolean) event[2]) {
+                    controller.onNak();
+                    controller.onResend(time);
+                    datagram.setSendTime(time);
+                    datagram.setSequenceIndex(sequenceIndex++);
+                    link.add(datagram);
+                } else {
+                    controller.onAck(time, datagram, sequenceIndex);
+                    delivered += datagram.getSize();
+                    datagram.release();
+                }
+            }
+
+            int bandwidth = controller.getTransmissionBandwidth();
+            while (bandwidth >= MTU) {
+                RakDatagramPacket datagram = newDatagram(time, sequenceIndex++);
+                bandwidth -= datagram.getSize();
+                controller.onReliableSend(datagram);
+                link.add(datagram);
+            }
+
+            int capacity = LINK_BYTES_PER_TICK;
+            RakDatagramPacket datagram;
+            while ((datagram = link.peek()) != null && capacity >= datagram.getSize()) {
+                link.remove();
+                capacity -= datagram.getSize();
+                feedback.add(new Object[]{time + RTT, datagram, random.nextDouble() < loss});
+            }
+        }
+
+        for (Object[] event : feedback) {
+            ((RakDatagramPacket) event[1]).release();
+        }
+        for (RakDatagramPacket datagram : link) {
+            datagram.release();
+        }
+        return delivered;
+    }
+
+    private static RakDatagramPacket newDatagram(long time, int sequenceIndex) {
+        EncapsulatedPacket packet = EncapsulatedPacket.newInstance();
+        packet.setReliability(RakReliability.RELIABLE);
+        packet.setBuffer(Unpooled.wrappedBuffer(new byte[MTU - 64]));
+
+        RakDatagramPacket datagram = RakDatagramPacket.newInstance();
+        datagram.setSendTime(time);
+        datagram.setSequenceIndex(sequenceIndex);
+        datagram.tryAddPacket(packet, MTU);
+        return datagram;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty;
+
+import org.cloudburstmc.netty.channel.emulated.EmulatedNetwork;
+import org.cloudburstmc.netty.channel.raknet.RakChannelFactory;
+import org.cloudburstmc.netty.channel.raknet.RakChildChannel;
+import org.cloudburstmc.netty.channel.raknet.RakClientChannel;
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
+import org.cloudburstmc.netty.channel.raknet.packet.RakMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+
+public class EmulatedNetworkTests {
+
+    private static final InetSocketAddress SERVER_ADDRESS = new InetSocketAddress("127.0.0.1", 19132);
+
+    private final EventLoopGroup group = new DefaultEventLoopGroup(1);
+
+    @AfterEach
+    public void shutdown() {
+        this.group.shutdownGracefully(0, 1, TimeUnit.SECONDS).awaitUninterruptibly();
+    }
+
+    @Test
+    public void testDatagramAccounting() throws Exception {
+        EmulatedNetwork network = new EmulatedNetwork(1)
+                .setLatency(5, TimeUnit.MILLISECONDS)
+                .setJitter(5, TimeUnit.MILLISECONDS)
+                .setLoss(0.1)
+                .setDuplicate(0.1);
+
+        int count = 1000;
+        CountDownLatch done = new CountDownLatch(1);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+
+        Channel receiver = new Bootstrap()
+                .channelFactory(network)
+                .group(this.group)
+                .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+                        int value = packet.content().readInt();
+                        if (value < 0) {
+                            done.countDown();
+                        } else {
+                            received.add(value);
+                        }
+                    }
+                })
+                .bind(SERVER_ADDRESS).sync().channel();
+
+        Channel sender = new Bootstrap()
+                .channelFactory(network)
+                .group(this.group)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(SERVER_ADDRESS).sync().channel();
+        Assertions.assertEquals(SERVER_ADDRESS, sender.remoteAddress());
+
+        for (int i = 0; i < count; i++) {
+            sender.write(Unpooled.buffer(4).writeInt(i));
+        }
+        sender.flush();
+
+        // Keep sending the end marker, the network may drop it as well
+        while (!done.await(50, TimeUnit.MILLISECONDS)) {
+            sender.writeAndFlush(Unpooled.buffer(4).writeInt(-1));
+        }
+        Thread.sleep(50);
+
+        long distinct = received.stream().distinct().count();
+        Assertions.assertTrue(distinct < count, "Nothing was lost");
+        Assertions.assertTrue(distinct < received.size(), "Nothing was duplicated");
+        Assertions.assertEquals(network.getSent() + network.getDuplicated(), network.getDelivered() + network.getDropped());
+
+        sender.close().sync();
+        receiver.close().sync();
+    }
+
+    @Test
+    public void testQueueLimitDropsExcess() throws Exception {
+        EmulatedNetwork network = new EmulatedNetwork()
+                .setBandwidth(100_000)
+                .setQueueLimit(10_000);
+
+        Channel receiver = new Bootstrap()
+                .channelFactory(network)
+                .group(this.group)
+                .handler(new ChannelInboundHandlerAdapter())
+                .bind(SERVER_ADDRESS).sync().channel();
+        Channel sender = new Bootstrap()
+                .channelFactory(network)
+                .group(this.group)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(SERVER_ADDRESS).sync().channel();
+
+        // 100 KB at once fits only the first 10 KB into the link queue
+        for (int i = 0; i < 99; i++) {
+            sender.write(Unpooled.wrappedBuffer(new byte[1000]));
+        }
+        sender.writeAndFlush(Unpooled.wrappedBuffer(new byte[1000])).sync();
+
+        Assertions.assertEquals(100, network.getSent());
+        Assertions.assertEquals(90, network.getDropped(), 1);
+
+        sender.close().sync();
+        receiver.close().sync();
+    }
+
+    @Test
+    public void testRakNetOrderedDeliveryUnderLoss() throws Exception {
+        EmulatedNetwork network = new EmulatedNetwork(1)
+                .setLatency(20, TimeUnit.MILLISECONDS)
+                .setJitter(10, TimeUnit.MILLISECONDS);
+
+        int count = 500;
+        CountDownLatch done = new CountDownLatch(count);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+
+        new ServerBootstrap()
+                .channelFactory(RakChannelFactory.server(network))
+                .group(this.group)
+                .option(RakChannelOption.RAK_SUPPORTED_PROTOCOLS, new int[]{11})
+                .option(RakChannelOption.RAK_MAX_CONNECTIONS, 1)
+                .option(RakChannelOption.RAK_GUID, ThreadLocalRandom.current().nextLong())
+                .childOption(RakChannelOption.RAK_ORDERING_CHANNELS, 1)
+                .childHandler(new ChannelInitializer<RakChildChannel>() {
+                    @Override
+                    protected void initChannel(RakChildChannel ch) {
+                        ch.pipeline().addLast(new SimpleChannelInboundHandler<RakMessage>() {
+                            @Override
+                            protected void channelRead0(ChannelHandlerContext ctx, RakMessage message) {
+                                received.add(message.content().readInt());
+                                done.countDown();
+                            }
+                        });
+                    }
+                })
+                .bind(SERVER_ADDRESS).sync();
+
+        Channel client = new Bootstrap()
+                .channelFactory(RakChannelFactory.client(network))
+                .group(this.group)
+                .option(RakChannelOption.RAK_PROTOCOL_VERSION, 11)
+                .option(RakChannelOption.RAK_ORDERING_CHANNELS, 1)
+                .handler(new ChannelInitializer<RakClientChannel>() {
+                    @Override
+                    protected void initChannel(RakClientChannel ch) {
+                    }
+                })
+                .connect(SERVER_ADDRESS).sync().channel();
+
+        // Lossy from here on, the offline handshake is tested elsewhere
+        network.setLoss(0.05).setReorder(0.05, 30, TimeUnit.MILLISECONDS).setDuplicate(0.01);
+        for (int i = 0; i < count; i++) {
+            client.writeAndFlush(new RakMessage(Unpooled.buffer(4).writeInt(i)));
+        }
+
+        Assertions.assertTrue(done.await(30, TimeUnit.SECONDS), "Only received " + received.size() + " messages");
+        Assertions.assertTrue(network.getDropped() > 0);
+        for (int i = 0; i < count; i++) {
+            Assertions.assertEquals(i, received.get(i));
+        }
+
+        client.close().sync();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty;
+
+import org.cloudburstmc.netty.util.IntRangeSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class IntRangeSetTests {
+
+    @Test
+    public void testConsecutiveValuesMerge() {
+        IntRangeSet set = new IntRangeSet();
+        for (int i = 0; i < 1000; i++) {
+            set.add(i);
+        }
+
+        Assertions.assertEquals(1, set.size());
+        Assertions.assertEquals(0, set.getFirstStart());
+        Assertions.assertEquals(999, set.getFirstEnd());
+    }
+
+    @Test
+    public void testOutOfOrderValuesMerge() {
+        IntRangeSet set = new IntRangeSet(4);
+        set.add(10);
+        set.add(12);
+        set.add(20, 25);
+        set.add(5);
+        Assertions.assertEquals(4, set.size());
+
+        // Fills the gap between 10 and 12 and bridges into 20..25
+        set.add(11);
+        set.add(13, 19);
+        set.add(24, 30);
+        Assertions.assertEquals(2, set.size());
+
+        Assertions.assertEquals(5, set.getFirstStart());
+        Assertions.assertEquals(5, set.getFirstEnd());
+        set.removeFirst();
+        Assertions.assertEquals(10, set.getFirstStart());
+        Assertions.assertEquals(30, set.getFirstEnd());
+        set.removeFirst();
+        Assertions.assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void testShuffledValues() {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 4096; i++) {
+            if (i % 100 != 0) {
+                values.add(i);
+            }
+        }
+        Collections.shuffle(values, new Random(42));
+
+        IntRangeSet set = new IntRangeSet(4);
+        for (int value : values) {
+            set.add(value);
+        }
+
+        int expectedStart = 1;
+        while (!set.isEmpty()) {
+            Assertions.assertEquals(expectedStart, set.getFirstStart());
+            Assertions.assertEquals(Math.min(expectedStart + 98, 4095), set.getFirstEnd());
+            set.removeFirst();
+            expectedStart += 100;
+        }
+        Assertions.assertEquals(4101, expectedStart);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty;
+
+import org.cloudburstmc.netty.util.IntTimerWheel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class IntTimerWheelTests {
+
+    @Test
+    public void testWheelOnlyReturnsDueValues() {
+        IntTimerWheel wheel = new IntTimerWheel(10, 16, 1000);
+
+        wheel.add(1, 1025);
+        wheel.add(2, 1005);
+        wheel.add(3, 1100);
+        wheel.add(4, 900); // Already due
+
+        Assertions.assertEquals(4, wheel.poll(1000));
+        Assertions.assertEquals(IntTimerWheel.NONE, wheel.poll(1000));
+
+        Assertions.assertEquals(2, wheel.poll(1020));
+        Assertions.assertEquals(IntTimerWheel.NONE, wheel.poll(1020));
+
+        List<Integer> values = new ArrayList<>();
+        int value;
+        while ((value = wheel.poll(1100)) != IntTimerWheel.NONE) {
+            values.add(value);
+        }
+        Assertions.assertEquals(Arrays.asList(1, 3), values);
+        Assertions.assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testWheelClampsDistantDeadlines() {
+        IntTimerWheel wheel = new IntTimerWheel(10, 16, 0);
+
+        wheel.add(1, 1000);
+        Assertions.assertEquals(IntTimerWheel.NONE, wheel.poll(100));
+
+        // Returned at the end of the wheel span, before its real deadline
+        Assertions.assertEquals(1, wheel.poll(150));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty;
+
+import org.cloudburstmc.netty.util.SequenceRing;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SequenceRingTests {
+
+    @Test
+    public void testRingGrowsWithLiveWindow() {
+        SequenceRing<Integer> ring = new SequenceRing<>(4);
+
+        // Keep sequence 0 unacknowledged while later ones come and go
+        ring.put(0, 0);
+        for (int i = 1; i < 100; i++) {
+            ring.put(i, i);
+            if (i > 10) {
+                Assertions.assertEquals(i - 10, ring.remove(i - 10));
+            }
+        }
+
+        Assertions.assertEquals(0, ring.get(0));
+        Assertions.assertNull(ring.get(50));
+        Assertions.assertEquals(99, ring.get(99));
+        Assertions.assertEquals(11, ring.size());
+        Assertions.assertTrue(ring.capacity() >= 100, "Ring did not grow to the live window");
+
+        Assertions.assertFalse(ring.remove(99, 98));
+        Assertions.assertTrue(ring.remove(99, 99));
+        Assertions.assertNull(ring.remove(99));
+    }
+
+    @Test
+    public void testRingReusesSlots() {
+        SequenceRing<Integer> ring = new SequenceRing<>(8);
+
+        for (int i = 0; i < 1000; i++) {
+            ring.put(i, i);
+            Assertions.assertNull(ring.get(i - 8));
+            Assertions.assertEquals(i, ring.remove(i));
+        }
+        Assertions.assertEquals(8, ring.capacity());
+        Assertions.assertTrue(ring.isEmpty());
+    }
+}
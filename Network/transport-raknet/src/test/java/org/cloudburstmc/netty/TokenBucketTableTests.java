@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022 CloudburstMC
+ *
+ * CloudburstMC licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.cloudburstmc.netty;
+
+import org.cloudburstmc.netty.util.TokenBucketTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+
+public class TokenBucketTableTests {
+
+    private static final long INTERVAL = 1_000;
+
+    @Test
+    public void testBurstThenRefill() throws Exception {
+        TokenBucketTable table = new TokenBucketTable(64);
+        InetAddress address = InetAddress.getByName("192.168.0.1");
+
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(table.tryAcquire(address, 0, INTERVAL, 10));
+        }
+        Assertions.assertFalse(table.tryAcquire(address, 0, INTERVAL, 10));
+
+        // One token per interval
+        Assertions.assertFalse(table.tryAcquire(address, INTERVAL - 1, INTERVAL, 10));
+        Assertions.assertTrue(table.tryAcquire(address, INTERVAL, INTERVAL, 10));
+        Assertions.assertFalse(table.tryAcquire(address, INTERVAL, INTERVAL, 10));
+
+        // Never more than the burst after a long pause
+        long later = INTERVAL * 1_000;
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(table.tryAcquire(address, later, INTERVAL, 10));
+        }
+        Assertions.assertFalse(table.tryAcquire(address, later, INTERVAL, 10));
+    }
+
+    @Test
+    public void testAddressesHaveSeparateBuckets() throws Exception {
+        TokenBucketTable table = new TokenBucketTable(64);
+        InetAddress ipv4 = InetAddress.getByName("10.0.0.1");
+        // Parsed as an Inet4Address, shares the key space of IPv4 addresses
+        InetAddress mapped = InetAddress.getByName("::ffff:10.0.0.2");
+        InetAddress ipv6 = InetAddress.getByName("2001:db8::1");
+
+        Assertions.assertTrue(table.tryAcquire(ipv4, 0, INTERVAL, 1));
+        Assertions.assertFalse(table.tryAcquire(ipv4, 0, INTERVAL, 1));
+        Assertions.assertTrue(table.tryAcquire(mapped, 0, INTERVAL, 1));
+        Assertions.assertTrue(table.tryAcquire(ipv6, 0, INTERVAL, 1));
+        Assertions.assertFalse(table.tryAcquire(ipv6, 0, INTERVAL, 1));
+    }
+
+    @Test
+    public void testFullTableEvictsInsteadOfGrowing() {
+        TokenBucketTable table = new TokenBucketTable(16);
+
+        // Far more addresses than slots, all with empty buckets
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertTrue(table.tryAcquire(0, i, 0, INTERVAL, 1));
+        }
+        Assertions.assertEquals(16, table.capacity());
+
+        // Buckets that refilled are reused and behave like new ones
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertTrue(table.tryAcquire(0, i, INTERVAL, INTERVAL, 1));
+        }
+    }
+}
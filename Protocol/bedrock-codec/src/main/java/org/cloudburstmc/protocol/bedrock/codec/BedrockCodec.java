@@ -30,6 +30,7 @@ public final class BedrockCodec {
     @Getter
     private final String minecraftVersion;
     private final BedrockPacketDefinition<? extends BedrockPacket>[] packetsById;
+    private final Class<? extends BedrockPacket>[] packetClassesById;
     private final Map<Class<? extends BedrockPacket>, BedrockPacketDefinition<? extends BedrockPacket>> packetsByClass;
     private final Supplier<BedrockCodecHelper> helperFactory;
     @Getter
@@ -43,8 +44,15 @@ public final class BedrockCodec {
         return tryDecode(helper, buf, id, null);
     }
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
     public BedrockPacket tryDecode(BedrockCodecHelper helper, ByteBuf buf, int id, PacketRecipient recipient) throws PacketSerializeException {
+        return tryDecode(helper, buf, id, recipient, null);
+    }
+
+    /**
+     * @param pool pool to take instances of pooled packet types from, or null to always create new instances
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BedrockPacket tryDecode(BedrockCodecHelper helper, ByteBuf buf, int id, PacketRecipient recipient, PacketPool pool) throws PacketSerializeException {
         BedrockPacketDefinition<? extends BedrockPacket> definition = getPacketDefinition(id);
 
         if (definition != null && recipient != null && definition.getRecipient() != PacketRecipient.BOTH &&
@@ -60,7 +68,7 @@ public final class BedrockCodec {
             packet = unknownPacket;
             serializer = (BedrockPacketSerializer) unknownPacket;
         } else {
-            packet = definition.getFactory().get();
+            packet = pool == null ? definition.getFactory().get() : pool.get((Class) packetClassesById[id], definition.getFactory());
             serializer = (BedrockPacketSerializer) definition.getSerializer();
         }
 
@@ -105,6 +113,13 @@ public final class BedrockCodec {
         return packetsById[id];
     }
 
+    public Class<? extends BedrockPacket> getPacketClass(int id) {
+        if (id < 0 || id >= packetClassesById.length) {
+            return null;
+        }
+        return packetClassesById[id];
+    }
+
     public BedrockCodecHelper createHelper() {
         return this.helperFactory.get();
     }
@@ -203,11 +218,14 @@ public final class BedrockCodec {
             }
             checkArgument(largestId > -1, "Must have at least one packet registered");
             BedrockPacketDefinition<? extends BedrockPacket>[] packetsById = new BedrockPacketDefinition[largestId + 1];
+            Class<? extends BedrockPacket>[] packetClassesById = new Class[largestId + 1];
 
-            for (BedrockPacketDefinition<? extends BedrockPacket> info : packets.values()) {
+            for (Map.Entry<Class<? extends BedrockPacket>, BedrockPacketDefinition<? extends BedrockPacket>> entry : packets.entrySet()) {
+                BedrockPacketDefinition<? extends BedrockPacket> info = entry.getValue();
                 packetsById[info.getId()] = info;
+                packetClassesById[info.getId()] = entry.getKey();
             }
-            return new BedrockCodec(protocolVersion, minecraftVersion, packetsById, packets, helperFactory, raknetProtocolVersion);
+            return new BedrockCodec(protocolVersion, minecraftVersion, packetsById, packetClassesById, packets, helperFactory, raknetProtocolVersion);
         }
     }
 }
@@ -0,0 +1,174 @@
+package org.cloudburstmc.protocol.bedrock.codec;
+
+import io.netty.util.ReferenceCounted;
+import io.netty.util.concurrent.FastThreadLocal;
+import org.cloudburstmc.protocol.bedrock.packet.*;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Reuses instances of frequently decoded packet types.
+ * <p>
+ * Every registered type has a bounded stack per thread. {@link #get(Class, Supplier)} takes an instance from the
+ * stack of the calling thread and {@link #recycle(BedrockPacket)} resets the packet and pushes it back. Only
+ * packets that are not reference counted can be registered. Types must be registered before the pool is used
+ * for decoding.
+ */
+public final class PacketPool {
+
+    /**
+     * Pool for the packet types that make up most inbound traffic during gameplay.
+     */
+    public static final PacketPool DEFAULT = new PacketPool(64)
+            .register(PlayerAuthInputPacket.class, PlayerAuthInputPacket::new, PacketPool::reset)
+            .register(MoveEntityDeltaPacket.class, MoveEntityDeltaPacket::new, PacketPool::reset)
+            .register(SetEntityMotionPacket.class, SetEntityMotionPacket::new, PacketPool::reset)
+            .register(LevelSoundEventPacket.class, LevelSoundEventPacket::new, PacketPool::reset)
+            .register(UpdateAttributesPacket.class, UpdateAttributesPacket::new, PacketPool::reset);
+
+    private final Map<Class<?>, Entry<?>> entries = new IdentityHashMap<>();
+    private final int maxPerThread;
+
+    /**
+     * @param maxPerThread maximum number of idle instances kept per type and thread
+     */
+    public PacketPool(int maxPerThread) {
+        this.maxPerThread = maxPerThread;
+    }
+
+    /**
+     * @param type    packet class
+     * @param factory creates new instances when the pool is empty
+     * @param reset   restores an instance to the state of a newly created one
+     * @return this pool
+     */
+    public <T extends BedrockPacket> PacketPool register(Class<T> type, Supplier<T> factory, Consumer<T> reset) {
+        if (ReferenceCounted.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException("Reference counted packets can not be pooled");
+        }
+        this.entries.put(type, new Entry<>(factory, reset, this.maxPerThread));
+        return this;
+    }
+
+    public boolean isPooled(Class<? extends BedrockPacket> type) {
+        return this.entries.containsKey(type);
+    }
+
+    /**
+     * @param type     packet class
+     * @param fallback used if the type is not pooled
+     * @return a pooled instance, or a new instance from the fallback
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends BedrockPacket> T get(Class<T> type, Supplier<T> fallback) {
+        Entry<T> entry = (Entry<T>) this.entries.get(type);
+        return entry == null ? fallback.get() : entry.get();
+    }
+
+    /**
+     * Returns a packet to the pool of the calling thread. Packets of types that are not pooled are ignored.
+     * The packet must not be used by the caller afterwards.
+     *
+     * @param packet packet to recycle
+     */
+    @SuppressWarnings("unchecked")
+    public void recycle(BedrockPacket packet) {
+        Entry<BedrockPacket> entry = (Entry<BedrockPacket>) this.entries.get(packet.getClass());
+        if (entry != null) {
+            entry.recycle(packet);
+        }
+    }
+
+    private static void reset(PlayerAuthInputPacket packet) {
+        packet.setRotation(null);
+        packet.setPosition(null);
+        packet.setMotion(null);
+        packet.getInputData().clear();
+        packet.setInputMode(null);
+        packet.setPlayMode(null);
+        packet.setVrGazeDirection(null);
+        packet.setTick(0);
+        packet.setDelta(null);
+        packet.setItemUseTransaction(null);
+        packet.setItemStackRequest(null);
+        packet.getPlayerActions().clear();
+        packet.setInputInteractionModel(null);
+        packet.setInteractRotation(null);
+        packet.setAnalogMoveVector(null);
+        packet.setPredictedVehicle(0);
+        packet.setVehicleRotation(null);
+        packet.setCameraOrientation(null);
+        packet.setRawMoveVector(null);
+    }
+
+    private static void reset(MoveEntityDeltaPacket packet) {
+        packet.setRuntimeEntityId(0);
+        packet.getFlags().clear();
+        packet.setDeltaX(0);
+        packet.setDeltaY(0);
+        packet.setDeltaZ(0);
+        packet.setX(0);
+        packet.setY(0);
+        packet.setZ(0);
+        packet.setPitch(0);
+        packet.setYaw(0);
+        packet.setHeadYaw(0);
+    }
+
+    private static void reset(SetEntityMotionPacket packet) {
+        packet.setRuntimeEntityId(0);
+        packet.setMotion(null);
+        packet.setTick(0);
+    }
+
+    private static void reset(LevelSoundEventPacket packet) {
+        packet.setSound(null);
+        packet.setPosition(null);
+        packet.setExtraData(0);
+        packet.setIdentifier(null);
+        packet.setBabySound(false);
+        packet.setRelativeVolumeDisabled(false);
+        packet.setEntityUniqueId(0);
+    }
+
+    private static void reset(UpdateAttributesPacket packet) {
+        packet.setRuntimeEntityId(0);
+        packet.getAttributes().clear();
+        packet.setTick(0);
+    }
+
+    private static final class Entry<T extends BedrockPacket> {
+        private final Supplier<T> factory;
+        private final Consumer<T> reset;
+        private final int capacity;
+        private final FastThreadLocal<ArrayDeque<T>> stacks = new FastThreadLocal<ArrayDeque<T>>() {
+            @Override
+            protected ArrayDeque<T> initialValue() {
+                return new ArrayDeque<>();
+            }
+        };
+
+        private Entry(Supplier<T> factory, Consumer<T> reset, int capacity) {
+            this.factory = factory;
+            this.reset = reset;
+            this.capacity = capacity;
+        }
+
+        private T get() {
+            T packet = this.stacks.get().pollLast();
+            return packet == null ? this.factory.get() : packet;
+        }
+
+        private void recycle(T packet) {
+            ArrayDeque<T> stack = this.stacks.get();
+            if (stack.size() < this.capacity) {
+                this.reset.accept(packet);
+                stack.addLast(packet);
+            }
+        }
+    }
+}
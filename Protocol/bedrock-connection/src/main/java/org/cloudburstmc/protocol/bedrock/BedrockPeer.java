@@ -6,6 +6,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.DecoderException;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
 import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.logging.InternalLogger;
@@ -17,25 +18,33 @@ import org.cloudburstmc.netty.channel.raknet.RakDisconnectReason;
 import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
 import org.cloudburstmc.protocol.bedrock.codec.BedrockCodec;
 import org.cloudburstmc.protocol.bedrock.codec.BedrockCodecHelper;
+import org.cloudburstmc.protocol.bedrock.codec.PacketPool;
+import org.cloudburstmc.protocol.bedrock.codec.PacketSerializeException;
 import org.cloudburstmc.protocol.bedrock.codec.v428.Bedrock_v428;
+import org.cloudburstmc.protocol.bedrock.data.CompressionAlgorithm;
 import org.cloudburstmc.protocol.bedrock.data.PacketCompressionAlgorithm;
+import org.cloudburstmc.protocol.bedrock.netty.BedrockBatchWrapper;
 import org.cloudburstmc.protocol.bedrock.netty.BedrockPacketWrapper;
 import org.cloudburstmc.protocol.bedrock.netty.codec.BlackholeInboundAdapter;
 import org.cloudburstmc.protocol.bedrock.netty.codec.FrameIdCodec;
 import org.cloudburstmc.protocol.bedrock.netty.codec.batch.BedrockBatchDecoder;
 import org.cloudburstmc.protocol.bedrock.netty.codec.compression.CompressionCodec;
+import org.cloudburstmc.protocol.bedrock.netty.codec.compression.CompressionOffloadHandler;
 import org.cloudburstmc.protocol.bedrock.netty.codec.compression.CompressionStrategy;
 import org.cloudburstmc.protocol.bedrock.netty.codec.encryption.BedrockEncryptionDecoder;
 import org.cloudburstmc.protocol.bedrock.netty.codec.encryption.BedrockEncryptionEncoder;
 import org.cloudburstmc.protocol.bedrock.netty.codec.packet.BedrockPacketCodec;
+import org.cloudburstmc.protocol.bedrock.netty.codec.packet.PacketDecodeFilter;
 import org.cloudburstmc.protocol.bedrock.netty.initializer.BedrockChannelInitializer;
 import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket;
+import org.cloudburstmc.protocol.bedrock.packet.UnknownPacket;
 import org.cloudburstmc.protocol.bedrock.util.EncryptionUtils;
 
 import javax.crypto.SecretKey;
 import java.net.SocketAddress;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -50,11 +59,20 @@ public class BedrockPeer extends ChannelInboundHandlerAdapter {
     private static final InternalLogger log = InternalLoggerFactory.getInstance(BedrockPeer.class);
 
     protected final Int2ObjectMap<BedrockSession> sessions = new Int2ObjectOpenHashMap<>();
-    protected final Queue<BedrockPacketWrapper> packetQueue = PlatformDependent.newMpscQueue();
+    protected final Queue<ReferenceCounted> packetQueue = PlatformDependent.newMpscQueue();
     protected final Channel channel;
     protected final BedrockSessionFactory sessionFactory;
     protected ScheduledFuture<?> tickFuture;
     protected AtomicBoolean closed = new AtomicBoolean();
+    protected final FlushStatistics flushStatistics = new FlushStatistics();
+    protected volatile FlushPolicy flushPolicy = FlushPolicy.TICK;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Runnable flushTask = this::onFlush;
+    // Guarded by packetQueue, used to account queue wait times without tagging every queued message
+    private int queuedPackets;
+    private long queuedBytes;
+    private long queuedTimeSum;
+    private long oldestQueuedTime;
 
     public BedrockPeer(Channel channel, BedrockSessionFactory sessionFactory) {
         this.channel = channel;
@@ -67,6 +85,12 @@ public class BedrockPeer extends ChannelInboundHandlerAdapter {
         session.onPacket(wrapper);
     }
 
+    protected void onBedrockBatch(BedrockBatchWrapper batch) {
+        for (BedrockSession session : this.sessions.values()) {
+            session.onBatch(batch);
+        }
+    }
+
     protected BedrockSession onSessionCreated(int sessionId) {
         return this.sessionFactory.createSession(this, sessionId);
     }
@@ -82,16 +106,64 @@ public class BedrockPeer extends ChannelInboundHandlerAdapter {
     }
 
     protected void onTick() {
+        this.flushQueue();
+    }
+
+    private void onFlush() {
+        this.flushScheduled.set(false);
+        this.flushQueue();
+    }
+
+    protected void flushQueue() {
         if (this.closed.get()) {
             return;
         }
 
-        if (!this.packetQueue.isEmpty()) {
-            BedrockPacketWrapper packet;
-            while ((packet = this.packetQueue.poll()) != null) {
-                this.channel.write(packet);
+        int packets;
+        long timeSum;
+        long oldest;
+        synchronized (this.packetQueue) {
+            packets = this.queuedPackets;
+            timeSum = this.queuedTimeSum;
+            oldest = this.oldestQueuedTime;
+            this.queuedPackets = 0;
+            this.queuedBytes = 0;
+            this.queuedTimeSum = 0;
+        }
+        if (packets == 0) {
+            return;
+        }
+
+        // Only write what has been accounted for, anything queued since then belongs to the next flush
+        for (int i = 0; i < packets; i++) {
+            ReferenceCounted msg = this.packetQueue.poll();
+            if (msg == null) {
+                break;
+            }
+            this.channel.write(msg);
+        }
+        this.channel.flush();
+
+        long now = System.nanoTime();
+        this.flushStatistics.record(packets, now * packets - timeSum, now - oldest);
+    }
+
+    private void queue(ReferenceCounted msg, Class<? extends BedrockPacket> packetClass, int size) {
+        long now = System.nanoTime();
+        int packets;
+        long bytes;
+        synchronized (this.packetQueue) {
+            this.packetQueue.add(msg);
+            if (this.queuedPackets == 0) {
+                this.oldestQueuedTime = now;
             }
-            this.channel.flush();
+            packets = ++this.queuedPackets;
+            bytes = this.queuedBytes += size;
+            this.queuedTimeSum += now;
+        }
+
+        if (this.flushPolicy.shouldFlush(packetClass, packets, bytes) && this.flushScheduled.compareAndSet(false, true)) {
+            this.channel.eventLoop().execute(this.flushTask);
         }
     }
 
@@ -103,19 +175,108 @@ public class BedrockPeer extends ChannelInboundHandlerAdapter {
     }
 
     private void free() {
-        for (BedrockPacketWrapper wrapper : this.packetQueue) {
+        for (ReferenceCounted wrapper : this.packetQueue) {
             ReferenceCountUtil.safeRelease(wrapper);
         }
     }
 
     public void sendPacket(int senderClientId, int targetClientId, BedrockPacket packet) {
-        this.packetQueue.add(BedrockPacketWrapper.create(0, senderClientId, targetClientId, packet, null));
+        BedrockSession.keepPacket(packet);
+        BedrockPacketWrapper wrapper = BedrockPacketWrapper.create(0, senderClientId, targetClientId, packet, null);
+        if (packet instanceof UnknownPacket) {
+            UnknownPacket unknown = (UnknownPacket) packet;
+            BedrockCodec codec = this.getCodec();
+            this.queue(wrapper, codec == null ? null : codec.getPacketClass(unknown.getPacketId()),
+                    unknown.getPayload() == null ? 0 : unknown.getPayload().readableBytes());
+        } else {
+            this.queue(wrapper, packet.getClass(), 0);
+        }
     }
 
     public void sendPacketImmediately(int senderClientId, int targetClientId, BedrockPacket packet) {
+        BedrockSession.keepPacket(packet);
         this.channel.writeAndFlush(BedrockPacketWrapper.create(0, senderClientId, targetClientId, packet, null));
     }
 
+    /**
+     * Queues a batch that was received by another peer. The compressed payload is written as-is,
+     * only encryption is applied again. Ownership of the batch reference is transferred to this peer.
+     *
+     * @param batch unmodified, compressed batch
+     * @see #canForwardBatch(BedrockPeer, BedrockBatchWrapper)
+     */
+    public void sendBatch(BedrockBatchWrapper batch) {
+        if (batch.getCompressed() == null || batch.isModified()) {
+            batch.release();
+            throw new IllegalArgumentException("Only unmodified compressed batches can be forwarded");
+        }
+        this.queue(batch, null, batch.getCompressed().readableBytes());
+    }
+
+    /**
+     * Sets the policy deciding when queued packets are written. Takes effect for the tick interval once the
+     * channel becomes active.
+     *
+     * @param flushPolicy flush policy, {@link FlushPolicy#TICK} by default
+     */
+    public void setFlushPolicy(@NonNull FlushPolicy flushPolicy) {
+        this.flushPolicy = flushPolicy;
+        if (this.tickFuture != null) {
+            this.tickFuture.cancel(false);
+            this.tickFuture = this.scheduleTick();
+        }
+    }
+
+    public FlushPolicy getFlushPolicy() {
+        return this.flushPolicy;
+    }
+
+    /**
+     * @return queue wait times of packets written by this peer
+     */
+    public FlushStatistics getFlushStatistics() {
+        return this.flushStatistics;
+    }
+
+    private ScheduledFuture<?> scheduleTick() {
+        long delay = Math.max(1, this.flushPolicy.getMaxDelay());
+        return this.channel.eventLoop().scheduleAtFixedRate(this::onTick, delay, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks whether a batch decoded by the source peer can be written by this peer without recompression.
+     *
+     * @param source peer the batch was received from
+     * @param batch  inbound batch
+     * @return true if both peers frame and compress batches the same way
+     */
+    public boolean canForwardBatch(BedrockPeer source, BedrockBatchWrapper batch) {
+        if (batch.getCompressed() == null || batch.getAlgorithm() == null || batch.isModified()) {
+            return false;
+        }
+
+        CompressionCodec sourceCodec = (CompressionCodec) source.channel.pipeline().get(CompressionCodec.NAME);
+        CompressionCodec targetCodec = (CompressionCodec) this.channel.pipeline().get(CompressionCodec.NAME);
+        if (sourceCodec == null || targetCodec == null || sourceCodec.isPrefixed() != targetCodec.isPrefixed() ||
+                source.getRakVersion() != this.getRakVersion()) {
+            return false;
+        }
+
+        CompressionAlgorithm algorithm = batch.getAlgorithm();
+        return algorithm == targetCodec.getStrategy().getDefaultCompression().getAlgorithm() ||
+                (targetCodec.isPrefixed() && algorithm == PacketCompressionAlgorithm.NONE);
+    }
+
+    /**
+     * Enables or disables passing inbound batches to {@link BedrockSession#onBatch(BedrockBatchWrapper)}
+     * once all of their packets have been handled.
+     *
+     * @param enabled whether batches should be emitted
+     */
+    public void setBatchForwarding(boolean enabled) {
+        this.channel.attr(BedrockBatchDecoder.EMIT_BATCHES).set(enabled);
+    }
+
     public void enableEncryption(@NonNull SecretKey secretKey) {
         Objects.requireNonNull(secretKey, "secretKey");
         if (!secretKey.getAlgorithm().equals("AES")) {
@@ -146,7 +307,7 @@ public class BedrockPeer extends ChannelInboundHandlerAdapter {
     public void setCompression(CompressionStrategy strategy) {
         Objects.requireNonNull(strategy, "strategy");
 
-        boolean needsPrefix = this.getCodec().getProtocolVersion() >= 649; // TODO: do not hardcode
+        boolean needsPrefix = this.isCompressionPrefixed();
 
         ChannelHandler handler = this.channel.pipeline().get(CompressionCodec.NAME);
         if (handler == null) {
@@ -156,6 +317,41 @@ public class BedrockPeer extends ChannelInboundHandlerAdapter {
         }
     }
 
+    /**
+     * Moves compression of batches with at least {@code threshold} uncompressed bytes off the event loop.
+     * Smaller batches are still compressed inline and all batches are written in their original order.
+     *
+     * @param executor  executor running the compression, e.g. {@link CompressionOffloadHandler#defaultExecutor()}
+     * @param threshold minimum uncompressed batch size to offload, a negative value removes the stage
+     */
+    public void setCompressionOffload(Executor executor, int threshold) {
+        ChannelHandler handler = this.channel.pipeline().get(CompressionOffloadHandler.NAME);
+        if (threshold < 0) {
+            if (handler != null) {
+                this.channel.pipeline().remove(CompressionOffloadHandler.NAME);
+            }
+            return;
+        }
+
+        Objects.requireNonNull(executor, "executor");
+        if (this.channel.pipeline().get(CompressionCodec.NAME) == null) {
+            throw new IllegalStateException("Compression has not been enabled");
+        }
+        CompressionOffloadHandler offload = new CompressionOffloadHandler(executor, threshold);
+        if (handler == null) {
+            this.channel.pipeline().addAfter(CompressionCodec.NAME, CompressionOffloadHandler.NAME, offload);
+        } else {
+            this.channel.pipeline().replace(CompressionOffloadHandler.NAME, CompressionOffloadHandler.NAME, offload);
+        }
+    }
+
+    /**
+     * @return whether batches carry a compression algorithm header for the current codec
+     */
+    public boolean isCompressionPrefixed() {
+        return this.getCodec().getProtocolVersion() >= 649; // TODO: do not hardcode
+    }
+
     public CompressionStrategy getCompressionStrategy() {
         ChannelHandler handler = this.channel.pipeline().get(CompressionCodec.NAME);
         if (!(handler instanceof CompressionCodec)) {
@@ -177,6 +373,35 @@ public class BedrockPeer extends ChannelInboundHandlerAdapter {
         this.channel.pipeline().get(BedrockPacketCodec.class).setCodec(codec);
     }
 
+    public void setDecodeFilter(PacketDecodeFilter decodeFilter) {
+        Objects.requireNonNull(decodeFilter, "decodeFilter");
+        this.channel.pipeline().get(BedrockPacketCodec.class).setDecodeFilter(decodeFilter);
+    }
+
+    /**
+     * Enables reuse of inbound packet instances. Pooled packets are only valid while their handler runs,
+     * see {@link BedrockSession#keepPacket(BedrockPacket)}.
+     *
+     * @param packetPool packet pool, e.g. {@link PacketPool#DEFAULT}, or null to disable pooling
+     */
+    public void setPacketPool(PacketPool packetPool) {
+        this.channel.pipeline().get(BedrockPacketCodec.class).setPacketPool(packetPool);
+    }
+
+    /**
+     * Decodes the body of a packet that was passed through without deserialization.
+     *
+     * @param wrapper inbound packet wrapper
+     * @return decoded packet
+     * @see PacketDecodeFilter
+     */
+    public BedrockPacket decodePacket(BedrockPacketWrapper wrapper) throws PacketSerializeException {
+        if (wrapper.getPacket() != null) {
+            return wrapper.getPacket();
+        }
+        return this.channel.pipeline().get(BedrockPacketCodec.class).decodePacket(wrapper);
+    }
+
     public void close(CharSequence reason) {
         for (BedrockSession session : this.sessions.values()) {
             session.disconnectReason = reason;
@@ -225,6 +450,14 @@ public class BedrockPeer extends ChannelInboundHandlerAdapter {
         return this.channel;
     }
 
+    /**
+     * @return false while the transport holds more queued data than its high water mark, producers of bulk data
+     * such as chunks should hold back until {@link BedrockSession#onWritabilityChanged(boolean)} reports true
+     */
+    public boolean isWritable() {
+        return this.channel.isWritable();
+    }
+
     public int getRakVersion() {
         return this.channel.config().getOption(RakChannelOption.RAK_PROTOCOL_VERSION);
     }
@@ -241,7 +474,7 @@ public class BedrockPeer extends ChannelInboundHandlerAdapter {
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         this.sessions.put(0, this.sessionFactory.createSession(this, 0));
-        this.tickFuture = this.channel.eventLoop().scheduleAtFixedRate(this::onTick, 50, 50, TimeUnit.MILLISECONDS);
+        this.tickFuture = this.scheduleTick();
     }
 
     @Override
@@ -249,11 +482,26 @@ public class BedrockPeer extends ChannelInboundHandlerAdapter {
         this.onClose();
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        boolean writable = ctx.channel().isWritable();
+        for (BedrockSession session : this.sessions.values()) {
+            try {
+                session.onWritabilityChanged(writable);
+            } catch (Exception e) {
+                log.error("Exception whilst handling writability change", e);
+            }
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
         try {
             if (msg instanceof BedrockPacketWrapper) {
                 this.onBedrockPacket((BedrockPacketWrapper) msg);
+            } else if (msg instanceof BedrockBatchWrapper) {
+                this.onBedrockBatch((BedrockBatchWrapper) msg);
             } else {
                 throw new DecoderException("Unexpected message type: " + msg.getClass().getName());
             }
@@ -1,11 +1,15 @@
 package org.cloudburstmc.protocol.bedrock;
 
+import io.netty.handler.codec.DecoderException;
+import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.cloudburstmc.protocol.bedrock.codec.BedrockCodec;
+import org.cloudburstmc.protocol.bedrock.codec.PacketSerializeException;
 import org.cloudburstmc.protocol.bedrock.data.PacketCompressionAlgorithm;
+import org.cloudburstmc.protocol.bedrock.netty.BedrockBatchWrapper;
 import org.cloudburstmc.protocol.bedrock.netty.BedrockPacketWrapper;
 import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket;
 import org.cloudburstmc.protocol.bedrock.packet.BedrockPacketHandler;
@@ -17,6 +21,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class BedrockSession {
     private static final InternalLogger log = InternalLoggerFactory.getInstance(BedrockSession.class);
+    private static final FastThreadLocal<BedrockPacketWrapper> HANDLING = new FastThreadLocal<>();
 
     private final AtomicBoolean closed = new AtomicBoolean();
     protected final BedrockPeer peer;
@@ -110,19 +115,87 @@ public abstract class BedrockSession {
 
     protected void onPacket(BedrockPacketWrapper wrapper) {
         BedrockPacket packet = wrapper.getPacket();
+        if (packet == null) {
+            try {
+                packet = this.peer.decodePacket(wrapper);
+            } catch (PacketSerializeException e) {
+                throw new DecoderException(e);
+            }
+        }
         this.logInbound(packet);
 
         if (packetHandler == null) {
             if (log.isDebugEnabled()) {
                 log.debug("Received packet without a packet handler for {}:{}: {}", this.getSocketAddress(), this.subClientId, packet);
             }
-        } else if (this.packetHandler.handlePacket(packet) == PacketSignal.UNHANDLED) {
-            if (log.isDebugEnabled()) {
-                log.debug("Unhandled packet for {}:{}: {}", this.getSocketAddress(), this.subClientId, packet);   
+            return;
+        }
+
+        BedrockPacketWrapper previous = beginHandling(wrapper);
+        try {
+            if (this.packetHandler.handlePacket(packet) == PacketSignal.UNHANDLED) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Unhandled packet for {}:{}: {}", this.getSocketAddress(), this.subClientId, packet);
+                }
             }
+        } finally {
+            endHandling(previous);
         }
     }
 
+    /**
+     * Marks the wrapper as the one being handled on the current thread, so its packet can be kept through
+     * {@link #keepPacket(BedrockPacket)}. Sessions overriding {@link #onPacket(BedrockPacketWrapper)} should wrap
+     * their packet handling with this and {@link #endHandling(BedrockPacketWrapper)}.
+     *
+     * @param wrapper inbound wrapper
+     * @return the previously handled wrapper
+     */
+    protected static BedrockPacketWrapper beginHandling(BedrockPacketWrapper wrapper) {
+        BedrockPacketWrapper previous = HANDLING.get();
+        HANDLING.set(wrapper);
+        return previous;
+    }
+
+    /**
+     * @param previous the wrapper returned by {@link #beginHandling(BedrockPacketWrapper)}
+     */
+    protected static void endHandling(BedrockPacketWrapper previous) {
+        HANDLING.set(previous);
+    }
+
+    /**
+     * Keeps a pooled packet from being recycled once its handler returns. Handlers that store an inbound packet
+     * or use it after returning must call this while handling it. Packets passed to
+     * {@link #sendPacket(BedrockPacket)} are kept automatically.
+     *
+     * @param packet packet currently being handled on this thread, other packets are ignored
+     * @see org.cloudburstmc.protocol.bedrock.codec.PacketPool
+     */
+    public static void keepPacket(BedrockPacket packet) {
+        BedrockPacketWrapper wrapper = HANDLING.getIfExists();
+        if (wrapper != null && wrapper.getPacket() == packet) {
+            wrapper.setPacketPool(null);
+        }
+    }
+
+    /**
+     * Called after every packet of an inbound batch has been passed to {@link #onPacket(BedrockPacketWrapper)}.
+     * Only fired when batch forwarding is enabled on the peer.
+     *
+     * @param batch the inbound batch, still holding its compressed payload
+     */
+    protected void onBatch(BedrockBatchWrapper batch) {
+    }
+
+    /**
+     * Called on the event loop whenever the peer's channel becomes unwritable or writable again.
+     *
+     * @param writable the current writability, see {@link BedrockPeer#isWritable()}
+     */
+    protected void onWritabilityChanged(boolean writable) {
+    }
+
     protected void logOutbound(BedrockPacket packet) {
         if (log.isTraceEnabled() && this.logging) {
             log.trace("Outbound {}{}: {}", this.getSocketAddress(), this.subClientId, packet);
@@ -139,6 +212,10 @@ public abstract class BedrockSession {
         return peer.getSocketAddress();
     }
 
+    public boolean isWritable() {
+        return this.peer.isWritable();
+    }
+
     public boolean isSubClient() {
         return this.subClientId != 0;
     }
@@ -0,0 +1,41 @@
+package org.cloudburstmc.protocol.bedrock;
+
+import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket;
+
+import java.util.Collections;
+
+/**
+ * Decides when packets queued through {@link BedrockPeer#sendPacket(int, int, BedrockPacket)} are written.
+ * <p>
+ * Queued packets are always written once {@link #getMaxDelay()} has passed. A flush requested by
+ * {@link #shouldFlush(Class, int, long)} is deferred to the end of the current event loop turn, so everything
+ * queued within the same turn still ends up in the same batch.
+ */
+public interface FlushPolicy {
+
+    /**
+     * Writes queued packets once per 50ms tick only.
+     */
+    FlushPolicy TICK = LatencyFlushPolicy.builder()
+            .maxDelay(50)
+            .maxPackets(Integer.MAX_VALUE)
+            .maxBytes(Long.MAX_VALUE)
+            .urgentPackets(Collections.emptySet())
+            .build();
+
+    /**
+     * @return maximum time in milliseconds a packet stays queued
+     */
+    long getMaxDelay();
+
+    /**
+     * Called after a packet or batch has been queued, possibly outside of the event loop.
+     *
+     * @param packetClass   class of the queued packet, resolved through the codec for unknown packets, or null
+     *                      for forwarded batches and unregistered packets
+     * @param queuedPackets number of packets and batches now queued
+     * @param queuedBytes   known size of the queued payloads, only raw packets and batches are counted
+     * @return true if the queue should be written at the end of the current event loop turn
+     */
+    boolean shouldFlush(Class<? extends BedrockPacket> packetClass, int queuedPackets, long queuedBytes);
+}
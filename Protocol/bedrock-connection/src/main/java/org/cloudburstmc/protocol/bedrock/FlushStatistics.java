@@ -0,0 +1,56 @@
+package org.cloudburstmc.protocol.bedrock;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue wait times of packets sent through {@link BedrockPeer#sendPacket(int, int, org.cloudburstmc.protocol.bedrock.packet.BedrockPacket)}.
+ * Values are updated on the event loop and may be read from any thread.
+ */
+@Getter
+public class FlushStatistics {
+
+    private volatile long flushes;
+    private volatile long packets;
+    private volatile long totalWaitNanos;
+    private volatile long maxWaitNanos;
+
+    void record(int packets, long totalWaitNanos, long maxWaitNanos) {
+        this.flushes++;
+        this.packets += packets;
+        this.totalWaitNanos += totalWaitNanos;
+        if (maxWaitNanos > this.maxWaitNanos) {
+            this.maxWaitNanos = maxWaitNanos;
+        }
+    }
+
+    /**
+     * @return average time a packet spent queued in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long packets = this.packets;
+        return packets == 0 ? 0 : (double) this.totalWaitNanos / packets / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return average number of packets written per flush
+     */
+    public double getAveragePacketsPerFlush() {
+        long flushes = this.flushes;
+        return flushes == 0 ? 0 : (double) this.packets / flushes;
+    }
+
+    public void reset() {
+        this.flushes = 0;
+        this.packets = 0;
+        this.totalWaitNanos = 0;
+        this.maxWaitNanos = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FlushStatistics(flushes=%d, packets=%d, averageWait=%.3fms, maxWait=%.3fms)",
+                this.flushes, this.packets, this.getAverageWaitMillis(), this.maxWaitNanos / 1_000_000d);
+    }
+}
@@ -0,0 +1,44 @@
+package org.cloudburstmc.protocol.bedrock;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket;
+import org.cloudburstmc.protocol.bedrock.packet.MovePlayerPacket;
+import org.cloudburstmc.protocol.bedrock.packet.NetworkStackLatencyPacket;
+import org.cloudburstmc.protocol.bedrock.packet.PlayerAuthInputPacket;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Flushes as soon as a latency critical packet is queued or the queue reaches a packet or byte threshold.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class LatencyFlushPolicy implements FlushPolicy {
+
+    public static final Set<Class<? extends BedrockPacket>> DEFAULT_URGENT_PACKETS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            PlayerAuthInputPacket.class,
+            MovePlayerPacket.class,
+            NetworkStackLatencyPacket.class
+    )));
+
+    public static final LatencyFlushPolicy DEFAULT = LatencyFlushPolicy.builder().build();
+
+    @Builder.Default
+    private final long maxDelay = 10;
+    @Builder.Default
+    private final int maxPackets = 64;
+    @Builder.Default
+    private final long maxBytes = 16 * 1024;
+    @Builder.Default
+    private final Set<Class<? extends BedrockPacket>> urgentPackets = DEFAULT_URGENT_PACKETS;
+
+    @Override
+    public boolean shouldFlush(Class<? extends BedrockPacket> packetClass, int queuedPackets, long queuedBytes) {
+        return queuedPackets >= this.maxPackets || queuedBytes >= this.maxBytes ||
+                (packetClass != null && this.urgentPackets.contains(packetClass));
+    }
+}
@@ -7,6 +7,7 @@ import io.netty.util.internal.ObjectPool;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.cloudburstmc.protocol.bedrock.codec.PacketPool;
 import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket;
 import org.cloudburstmc.protocol.bedrock.util.PacketFlag;
 
@@ -25,6 +26,10 @@ public class BedrockPacketWrapper extends AbstractReferenceCounted {
     private BedrockPacket packet;
     private ByteBuf packetBuffer;
     private Set<PacketFlag> flags = new ObjectOpenHashSet<>();
+    /**
+     * Pool the packet is returned to when this wrapper is deallocated, null if the packet is not pooled.
+     */
+    private PacketPool packetPool;
 
     public static BedrockPacketWrapper create(int packetId, int senderSubClientId, int targetSubClientId, BedrockPacket packet, ByteBuf packetBuffer) {
         BedrockPacketWrapper wrapper = RECYCLER.get();
@@ -70,13 +75,18 @@ public class BedrockPacketWrapper extends AbstractReferenceCounted {
 
     @Override
     protected void deallocate() {
-        ReferenceCountUtil.safeRelease(this.packet);
+        if (this.packetPool != null && this.packet != null) {
+            this.packetPool.recycle(this.packet);
+        } else {
+            ReferenceCountUtil.safeRelease(this.packet);
+        }
         ReferenceCountUtil.safeRelease(this.packetBuffer);
         this.packetId = 0;
         this.senderSubClientId = 0;
         this.targetSubClientId = 0;
         this.headerLength = 0;
         this.packet = null;
+        this.packetPool = null;
         this.packetBuffer = null;
         this.flags.clear();
         this.handle.recycle(this);
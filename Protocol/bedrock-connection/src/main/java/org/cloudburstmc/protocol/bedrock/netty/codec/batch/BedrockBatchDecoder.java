@@ -4,6 +4,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.util.AttributeKey;
 import org.cloudburstmc.protocol.bedrock.netty.BedrockBatchWrapper;
 import org.cloudburstmc.protocol.common.util.VarInts;
 
@@ -13,6 +14,11 @@ import java.util.List;
 public class BedrockBatchDecoder extends MessageToMessageDecoder<BedrockBatchWrapper> {
 
     public static final String NAME = "bedrock-batch-decoder";
+    /**
+     * When set on a channel, the batch itself is passed on after its packets so that
+     * {@link org.cloudburstmc.protocol.bedrock.BedrockPeer} can forward it without recompression.
+     */
+    public static final AttributeKey<Boolean> EMIT_BATCHES = AttributeKey.valueOf("bedrock-emit-batches");
 
     @Override
     protected void decode(ChannelHandlerContext ctx, BedrockBatchWrapper msg, List<Object> out) {
@@ -26,5 +32,9 @@ public class BedrockBatchDecoder extends MessageToMessageDecoder<BedrockBatchWra
             ByteBuf packetBuf = buffer.readRetainedSlice(packetLength);
             out.add(packetBuf);
         }
+
+        if (Boolean.TRUE.equals(ctx.channel().attr(EMIT_BATCHES).get())) {
+            out.add(msg.retain());
+        }
     }
 }
@@ -1,7 +1,6 @@
 package org.cloudburstmc.protocol.bedrock.netty.codec.batch;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
@@ -21,6 +20,10 @@ public class BedrockBatchEncoder extends ChannelOutboundHandlerAdapter {
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
         if (!(msg instanceof BedrockPacketWrapper)) {
+            if (msg instanceof BedrockBatchWrapper && !this.messages.isEmpty()) {
+                // Forwarded batches must not overtake packets that are still waiting to be batched
+                this.writeBatch(ctx);
+            }
             super.write(ctx, msg, promise);
             return;
         }
@@ -32,26 +35,37 @@ public class BedrockBatchEncoder extends ChannelOutboundHandlerAdapter {
 
     @Override
     public void flush(ChannelHandlerContext ctx) throws Exception {
-        if (messages.isEmpty()) {
-            super.flush(ctx);
-            return;
+        if (!messages.isEmpty()) {
+            this.writeBatch(ctx);
+        }
+        super.flush(ctx);
+    }
+
+    /**
+     * Writes all accumulated packets as one batch. Length prefixes and packet bodies are copied into a single
+     * buffer sized from the known packet lengths, so compression can read it in place.
+     */
+    private void writeBatch(ChannelHandlerContext ctx) {
+        int size = 0;
+        for (BedrockPacketWrapper packet : this.messages) {
+            ByteBuf message = packet.getPacketBuffer();
+            if (message == null) {
+                this.releaseMessages();
+                throw new IllegalArgumentException("BedrockPacket is not encoded");
+            }
+            int length = message.readableBytes();
+            size += VarInts.sizeOfUnsignedInt(length) + length;
         }
 
-        CompositeByteBuf buf = ctx.alloc().compositeDirectBuffer(messages.size() * 2);
+        ByteBuf buf = ctx.alloc().ioBuffer(size);
         BedrockBatchWrapper batch = BedrockBatchWrapper.newInstance();
 
         try {
             BedrockPacketWrapper packet;
             while ((packet = messages.poll()) != null) try {
                 ByteBuf message = packet.getPacketBuffer();
-                if (message == null) {
-                    throw new IllegalArgumentException("BedrockPacket is not encoded");
-                }
-
-                ByteBuf header = ctx.alloc().ioBuffer(5);
-                VarInts.writeUnsignedInt(header, message.readableBytes());
-                buf.addComponent(true, header);
-                buf.addComponent(true, message.retain());
+                VarInts.writeUnsignedInt(buf, message.readableBytes());
+                buf.writeBytes(message, message.readerIndex(), message.readableBytes());
                 batch.addPacket(packet.retain());
             } finally {
                 packet.release();
@@ -63,16 +77,18 @@ public class BedrockBatchEncoder extends ChannelOutboundHandlerAdapter {
             buf.release();
             batch.release();
         }
-
-        super.flush(ctx);
     }
 
-    @Override
-    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+    private void releaseMessages() {
         BedrockPacketWrapper message;
         while ((message = messages.poll()) != null) {
             message.release();
         }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        this.releaseMessages();
         super.handlerRemoved(ctx);
     }
 }
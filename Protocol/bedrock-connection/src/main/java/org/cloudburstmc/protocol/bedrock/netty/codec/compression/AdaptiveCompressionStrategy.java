@@ -0,0 +1,249 @@
+package org.cloudburstmc.protocol.bedrock.netty.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import lombok.Getter;
+import lombok.Setter;
+import org.cloudburstmc.protocol.bedrock.data.CompressionAlgorithm;
+import org.cloudburstmc.protocol.bedrock.data.PacketCompressionAlgorithm;
+import org.cloudburstmc.protocol.bedrock.netty.BedrockBatchWrapper;
+import org.cloudburstmc.protocol.bedrock.netty.BedrockPacketWrapper;
+import org.cloudburstmc.protocol.bedrock.netty.initializer.BedrockChannelInitializer;
+
+import java.util.List;
+
+/**
+ * A per-connection compression strategy that picks the compression for every batch:
+ * <ul>
+ *     <li>batches below {@link #getUncompressedThreshold()} are sent uncompressed (prefixed compression only)</li>
+ *     <li>latency sensitive batches and batches below {@link #getHeavyThreshold()} use a fast compression</li>
+ *     <li>only large batches and batches carrying chunk data pay for the full zlib level</li>
+ * </ul>
+ * Compression ratio and encode time are tracked per tier and both thresholds are adjusted as the connection runs.
+ * Instances keep state and must not be shared between connections.
+ */
+public class AdaptiveCompressionStrategy implements CompressionStrategy {
+
+    private static final IntSet LATENCY_SENSITIVE_PACKETS = new IntOpenHashSet(new int[]{
+            18,  // MoveEntityAbsolutePacket
+            19,  // MovePlayerPacket
+            40,  // SetEntityMotionPacket
+            111, // MoveEntityDeltaPacket
+            115, // NetworkStackLatencyPacket
+            144  // PlayerAuthInputPacket
+    });
+    private static final IntSet CHUNK_PACKETS = new IntOpenHashSet(new int[]{
+            58,  // LevelChunkPacket
+            174  // SubChunkPacket
+    });
+
+    private static final int MIN_UNCOMPRESSED_THRESHOLD = 64;
+    private static final int MAX_UNCOMPRESSED_THRESHOLD = 1024;
+    private static final int MIN_HEAVY_THRESHOLD = 4 * 1024;
+    private static final int MAX_HEAVY_THRESHOLD = 256 * 1024;
+    private static final int SAMPLES_PER_ADJUSTMENT = 64;
+
+    private final boolean prefixed;
+
+    private final BatchCompression none;
+    private final BatchCompression zlib;
+    private final BatchCompression snappy;
+
+    private final Tier fast;
+    private final Tier heavy;
+
+    @Getter
+    private int uncompressedThreshold = 256;
+    @Getter
+    private int heavyThreshold = 16 * 1024;
+    @Getter @Setter
+    private boolean adjusting = true;
+
+    /**
+     * @param raw      whether zlib is used without header, see {@link BedrockChannelInitializer#getCompression}
+     * @param prefixed whether the connection uses prefixed compression, which allows switching algorithm per batch
+     */
+    public AdaptiveCompressionStrategy(boolean raw, boolean prefixed) {
+        this(raw, prefixed, false);
+    }
+
+    /**
+     * @param raw       whether zlib is used without header
+     * @param prefixed  whether the connection uses prefixed compression
+     * @param useSnappy whether the fast tier uses Snappy instead of a low zlib level, only applies if prefixed
+     */
+    public AdaptiveCompressionStrategy(boolean raw, boolean prefixed, boolean useSnappy) {
+        this.prefixed = prefixed;
+        this.none = new NoopCompression();
+        this.snappy = new SnappyCompression();
+        this.zlib = BedrockChannelInitializer.createZlibCompression(raw);
+
+        BatchCompression fastZlib = BedrockChannelInitializer.createZlibCompression(raw);
+        fastZlib.setLevel(1);
+        this.fast = new Tier(prefixed && useSnappy ? this.snappy : fastZlib);
+        this.heavy = new Tier(this.zlib);
+    }
+
+    @Override
+    public BatchCompression getCompression(BedrockBatchWrapper wrapper) {
+        ByteBuf uncompressed = wrapper.getUncompressed();
+        int size = uncompressed == null ? 0 : uncompressed.readableBytes();
+
+        if (this.prefixed && size < this.uncompressedThreshold) {
+            return this.none;
+        }
+
+        List<BedrockPacketWrapper> packets = wrapper.getPackets();
+        boolean latencySensitive = !packets.isEmpty();
+        for (int i = 0; i < packets.size(); i++) {
+            int packetId = packets.get(i).getPacketId();
+            if (CHUNK_PACKETS.contains(packetId)) {
+                return this.heavy;
+            }
+            latencySensitive &= LATENCY_SENSITIVE_PACKETS.contains(packetId);
+        }
+
+        return latencySensitive || size < this.heavyThreshold ? this.fast : this.heavy;
+    }
+
+    @Override
+    public BatchCompression getCompression(CompressionAlgorithm algorithm) {
+        if (algorithm == PacketCompressionAlgorithm.ZLIB) {
+            return this.zlib;
+        } else if (algorithm == PacketCompressionAlgorithm.SNAPPY) {
+            return this.snappy;
+        } else if (algorithm == PacketCompressionAlgorithm.NONE) {
+            return this.none;
+        }
+        return this.heavy;
+    }
+
+    @Override
+    public BatchCompression getDefaultCompression() {
+        return this.heavy;
+    }
+
+    public void setUncompressedThreshold(int uncompressedThreshold) {
+        this.uncompressedThreshold = clamp(uncompressedThreshold, MIN_UNCOMPRESSED_THRESHOLD, MAX_UNCOMPRESSED_THRESHOLD);
+    }
+
+    public void setHeavyThreshold(int heavyThreshold) {
+        this.heavyThreshold = clamp(heavyThreshold, MIN_HEAVY_THRESHOLD, MAX_HEAVY_THRESHOLD);
+    }
+
+    /**
+     * @return average compressed to uncompressed size ratio of the fast tier
+     */
+    public double getFastRatio() {
+        return this.fast.ratio;
+    }
+
+    /**
+     * @return average compressed to uncompressed size ratio of the heavy tier
+     */
+    public double getHeavyRatio() {
+        return this.heavy.ratio;
+    }
+
+    /**
+     * @return average encode time of the fast tier in nanoseconds per input byte
+     */
+    public double getFastNanosPerByte() {
+        return this.fast.nanosPerByte;
+    }
+
+    /**
+     * @return average encode time of the heavy tier in nanoseconds per input byte
+     */
+    public double getHeavyNanosPerByte() {
+        return this.heavy.nanosPerByte;
+    }
+
+    private void adjust() {
+        if (!this.adjusting || this.fast.samples < SAMPLES_PER_ADJUSTMENT) {
+            return;
+        }
+
+        // Compression that barely shrinks small batches is not worth the CPU; leave more of them uncompressed.
+        if (this.prefixed) {
+            if (this.fast.ratio > 0.85) {
+                this.setUncompressedThreshold(this.uncompressedThreshold << 1);
+            } else if (this.fast.ratio < 0.6) {
+                this.setUncompressedThreshold(this.uncompressedThreshold >> 1);
+            }
+        }
+
+        // Only move batches to the heavy tier while it saves a meaningful amount of bytes over the fast tier.
+        if (this.heavy.samples >= SAMPLES_PER_ADJUSTMENT / 4) {
+            double gain = this.fast.ratio - this.heavy.ratio;
+            if (gain < 0.05 || this.heavy.nanosPerByte > this.fast.nanosPerByte * 8 && gain < 0.1) {
+                this.setHeavyThreshold(this.heavyThreshold << 1);
+            } else if (gain > 0.15) {
+                this.setHeavyThreshold(this.heavyThreshold >> 1);
+            }
+            this.heavy.samples = 0;
+        }
+        this.fast.samples = 0;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Delegating compression that records size ratio and encode time.
+     */
+    private class Tier implements BatchCompression {
+        private static final double WEIGHT = 0.05;
+
+        private final BatchCompression compression;
+        private double ratio = 0.5;
+        private double nanosPerByte;
+        private int samples;
+
+        private Tier(BatchCompression compression) {
+            this.compression = compression;
+        }
+
+        @Override
+        public ByteBuf encode(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
+            int length = msg.readableBytes();
+            long start = System.nanoTime();
+            ByteBuf compressed = this.compression.encode(ctx, msg);
+            long elapsed = System.nanoTime() - start;
+
+            if (length > 0) {
+                // Large batches may be compressed off the event loop, see CompressionOffloadHandler
+                synchronized (AdaptiveCompressionStrategy.this) {
+                    this.ratio += ((double) compressed.readableBytes() / length - this.ratio) * WEIGHT;
+                    this.nanosPerByte += ((double) elapsed / length - this.nanosPerByte) * WEIGHT;
+                    this.samples++;
+                    AdaptiveCompressionStrategy.this.adjust();
+                }
+            }
+            return compressed;
+        }
+
+        @Override
+        public ByteBuf decode(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
+            return this.compression.decode(ctx, msg);
+        }
+
+        @Override
+        public CompressionAlgorithm getAlgorithm() {
+            return this.compression.getAlgorithm();
+        }
+
+        @Override
+        public void setLevel(int level) {
+            this.compression.setLevel(level);
+        }
+
+        @Override
+        public int getLevel() {
+            return this.compression.getLevel();
+        }
+    }
+}
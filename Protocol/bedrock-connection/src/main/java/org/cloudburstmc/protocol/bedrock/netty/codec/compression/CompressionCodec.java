@@ -27,11 +27,30 @@ public class CompressionCodec extends MessageToMessageCodec<BedrockBatchWrapper,
         }
 
         if (msg.getCompressed() != null && !msg.isModified()) {
-            this.onPassedThrough(ctx, msg);
+            if (msg.hasFlag(CompressionOffloadHandler.OFFLOADED)) {
+                msg.unsetFlag(CompressionOffloadHandler.OFFLOADED);
+                this.onCompressed(ctx, msg);
+            } else {
+                this.onPassedThrough(ctx, msg);
+            }
             out.add(msg.retain());
             return;
         }
 
+        this.compress(ctx, msg);
+        this.onCompressed(ctx, msg);
+        out.add(msg.retain());
+    }
+
+    /**
+     * Compresses the uncompressed payload of the batch and stores the result, including the algorithm header
+     * if prefixed, as its compressed buffer. Does not touch any channel state and may be called outside of the
+     * event loop.
+     *
+     * @param ctx context used to allocate buffers
+     * @param msg batch to compress
+     */
+    public void compress(ChannelHandlerContext ctx, BedrockBatchWrapper msg) throws Exception {
         BatchCompression compression = this.strategy.getCompression(msg);
         if (!this.prefixed && this.strategy.getDefaultCompression().getAlgorithm() != compression.getAlgorithm()) {
             throw new IllegalStateException("Non-default compression algorithm used without prefixing");
@@ -53,9 +72,6 @@ public class CompressionCodec extends MessageToMessageCodec<BedrockBatchWrapper,
         } finally {
             compressed.release();
         }
-
-        this.onCompressed(ctx, msg);
-        out.add(msg.retain());
     }
 
     @Override
@@ -129,4 +145,8 @@ public class CompressionCodec extends MessageToMessageCodec<BedrockBatchWrapper,
     public CompressionStrategy getStrategy() {
         return this.strategy;
     }
+
+    public boolean isPrefixed() {
+        return this.prefixed;
+    }
 }
@@ -0,0 +1,205 @@
+package org.cloudburstmc.protocol.bedrock.netty.codec.compression;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+import org.cloudburstmc.protocol.bedrock.netty.BedrockBatchWrapper;
+import org.cloudburstmc.protocol.bedrock.util.PacketFlag;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresses large batches on a worker pool instead of the channel's event loop.
+ * <p>
+ * The handler sits in front of {@link CompressionCodec} in the outbound direction. Batches of at least
+ * {@code threshold} uncompressed bytes are compressed on the executor; the codec then passes them through as
+ * already compressed. Every write issued while a batch is being compressed is held back, so messages reach
+ * encryption and the wire in their original order. Small batches written while nothing is pending keep the
+ * inline path.
+ */
+public class CompressionOffloadHandler extends ChannelOutboundHandlerAdapter {
+
+    public static final String NAME = "compression-offload";
+
+    private static final InternalLogger log = InternalLoggerFactory.getInstance(CompressionOffloadHandler.class);
+
+    /**
+     * Set on batches compressed by this handler, so {@link CompressionCodec} reports them as compressed
+     * rather than passed through.
+     */
+    static final PacketFlag OFFLOADED = new PacketFlag() {
+        @Override
+        public boolean canInherit() {
+            return false;
+        }
+    };
+
+    private final Executor executor;
+    private final int threshold;
+    private final ArrayDeque<PendingWrite> pending = new ArrayDeque<>();
+    private ChannelHandlerContext ctx;
+    private boolean flushPending;
+    private boolean removed;
+
+    public CompressionOffloadHandler(Executor executor, int threshold) {
+        this.executor = executor;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return shared bounded executor with half of the available processors, rejecting work once 256 batches are queued
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        this.removed = true;
+        // Batches still being compressed are released by their completion task, the worker is still using them
+        Iterator<PendingWrite> iterator = this.pending.iterator();
+        while (iterator.hasNext()) {
+            PendingWrite write = iterator.next();
+            if (write.done) {
+                iterator.remove();
+                write.release(new ClosedChannelException());
+            }
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof BedrockBatchWrapper && this.shouldOffload((BedrockBatchWrapper) msg)) {
+            CompressionCodec codec = (CompressionCodec) ctx.pipeline().get(CompressionCodec.NAME);
+            if (codec != null) {
+                PendingWrite write = new PendingWrite(msg, promise);
+                this.pending.add(write);
+                try {
+                    this.executor.execute(() -> this.compress(codec, (BedrockBatchWrapper) msg, write));
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // Pool is saturated, compress on the event loop as usual
+                    this.pending.removeLast();
+                }
+            }
+        }
+
+        if (this.pending.isEmpty()) {
+            ctx.write(msg, promise);
+        } else {
+            PendingWrite write = new PendingWrite(msg, promise);
+            write.done = true;
+            this.pending.add(write);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (!this.pending.isEmpty()) {
+            this.flushPending = true;
+        }
+        ctx.flush();
+    }
+
+    private boolean shouldOffload(BedrockBatchWrapper batch) {
+        if (batch.getCompressed() != null && !batch.isModified()) {
+            return false;
+        }
+        return batch.getUncompressed() != null && batch.getUncompressed().readableBytes() >= this.threshold;
+    }
+
+    private void compress(CompressionCodec codec, BedrockBatchWrapper batch, PendingWrite write) {
+        try {
+            codec.compress(this.ctx, batch);
+            // Let the codec pass the batch through without compressing it again, but report it as compressed
+            batch.setModified(false);
+            batch.setFlag(OFFLOADED);
+        } catch (Throwable t) {
+            write.cause = t;
+        }
+
+        try {
+            this.ctx.executor().execute(() -> {
+                write.done = true;
+                if (this.removed) {
+                    this.pending.remove(write);
+                    write.release(new ClosedChannelException());
+                } else {
+                    this.drain();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The event loop is shut down and will never write the batch
+            write.release(new ClosedChannelException());
+        }
+    }
+
+    private void drain() {
+        boolean written = false;
+        PendingWrite write;
+        while ((write = this.pending.peek()) != null && write.done) {
+            this.pending.poll();
+            if (this.removed) {
+                write.release(new ClosedChannelException());
+            } else if (write.cause != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Failed to compress batch", write.cause);
+                }
+                write.release(write.cause);
+            } else {
+                this.ctx.write(write.msg, write.promise);
+                written = true;
+            }
+        }
+
+        if (written && this.flushPending) {
+            this.flushPending = !this.pending.isEmpty();
+            this.ctx.flush();
+        }
+    }
+
+    private static final class PendingWrite {
+        private final Object msg;
+        private final ChannelPromise promise;
+        private boolean done;
+        private Throwable cause;
+
+        private PendingWrite(Object msg, ChannelPromise promise) {
+            this.msg = msg;
+            this.promise = promise;
+        }
+
+        private void release(Throwable cause) {
+            ReferenceCountUtil.safeRelease(this.msg);
+            this.promise.tryFailure(cause);
+        }
+    }
+
+    private static final class DefaultExecutorHolder {
+        private static final Executor EXECUTOR;
+
+        static {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(256), new DefaultThreadFactory("bedrock-compression", true));
+            executor.allowCoreThreadTimeOut(true);
+            EXECUTOR = executor;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.cloudburstmc.protocol.bedrock.netty.codec.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import lombok.Getter;
+import lombok.Setter;
+import org.cloudburstmc.protocol.bedrock.data.CompressionAlgorithm;
+import org.cloudburstmc.protocol.bedrock.data.PacketCompressionAlgorithm;
+import org.cloudburstmc.protocol.common.util.NioZlib;
+
+/**
+ * Zlib compression backed by {@link NioZlib}. Output buffers are sized from the observed compression ratio
+ * rather than a fixed multiple of the input.
+ */
+public class NioZlibCompression implements BatchCompression {
+    private static final int MAX_DECOMPRESSED_BYTES = Integer.getInteger("bedrock.maxDecompressedBytes", 1024 * 1024 * 10);
+
+    private final NioZlib zlib;
+
+    @Getter @Setter
+    private int level = 7;
+
+    public NioZlibCompression(NioZlib zlib) {
+        this.zlib = zlib;
+    }
+
+    @Override
+    public ByteBuf encode(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
+        ByteBuf outBuf = ctx.alloc().ioBuffer(zlib.estimateDeflatedSize(msg.readableBytes()));
+        try {
+            zlib.deflate(msg, outBuf, level);
+            return outBuf.retain();
+        } finally {
+            outBuf.release();
+        }
+    }
+
+    @Override
+    public ByteBuf decode(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
+        return zlib.inflate(msg, MAX_DECOMPRESSED_BYTES);
+    }
+
+    @Override
+    public CompressionAlgorithm getAlgorithm() {
+        return PacketCompressionAlgorithm.ZLIB;
+    }
+}
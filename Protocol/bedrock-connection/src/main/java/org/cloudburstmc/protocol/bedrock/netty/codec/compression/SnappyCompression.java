@@ -3,7 +3,6 @@ package org.cloudburstmc.protocol.bedrock.netty.codec.compression;
 import io.airlift.compress.snappy.SnappyRawCompressor;
 import io.airlift.compress.snappy.SnappyRawDecompressor;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import org.cloudburstmc.protocol.bedrock.data.CompressionAlgorithm;
 import org.cloudburstmc.protocol.bedrock.data.PacketCompressionAlgorithm;
@@ -21,7 +20,7 @@ public class SnappyCompression implements BatchCompression {
     @Override
     public ByteBuf encode(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
         ByteBuf direct;
-        if (!msg.isDirect() || msg instanceof CompositeByteBuf) {
+        if (!msg.hasMemoryAddress()) {
             direct = ctx.alloc().ioBuffer(msg.readableBytes());
             direct.writeBytes(msg);
         } else {
@@ -63,7 +62,8 @@ public class SnappyCompression implements BatchCompression {
     @Override
     public ByteBuf decode(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
         ByteBuf direct;
-        if (!msg.isDirect() || msg instanceof CompositeByteBuf) {
+        // Split batches arrive as slices of composite buffers, which are direct but have no memory address
+        if (!msg.hasMemoryAddress()) {
             direct = ctx.alloc().ioBuffer(msg.readableBytes());
             direct.writeBytes(msg);
         } else {
@@ -4,51 +4,65 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.CorruptedFrameException;
 import io.netty.handler.codec.MessageToMessageDecoder;
-import lombok.RequiredArgsConstructor;
 import org.cloudburstmc.protocol.bedrock.netty.BedrockBatchWrapper;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
-import java.nio.ByteBuffer;
-import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
 
-@RequiredArgsConstructor
+/**
+ * Decrypts batches in place. Buffers without an accessible array are copied once into a pooled heap buffer
+ * first, as the JCE would otherwise stage direct buffers through freshly allocated arrays.
+ */
 public class BedrockEncryptionDecoder extends MessageToMessageDecoder<BedrockBatchWrapper> {
 
     public static final String NAME = "bedrock-encryption-decoder";
 
     private static final boolean VALIDATE = Boolean.getBoolean("cloudburst.validateEncryption");
 
-    private final AtomicLong packetCounter = new AtomicLong();
-    private final SecretKey key;
+    private final EncryptionTrailer trailer;
     private final Cipher cipher;
 
+    public BedrockEncryptionDecoder(SecretKey key, Cipher cipher) {
+        this.trailer = new EncryptionTrailer(key);
+        this.cipher = cipher;
+    }
+
     @Override
     protected void decode(ChannelHandlerContext ctx, BedrockBatchWrapper msg, List<Object> out) throws Exception {
-        ByteBuffer inBuffer = msg.getCompressed().nioBuffer();
-        ByteBuffer outBuffer = inBuffer.duplicate();
-
-        // Copy-safe so we can use the same buffer.
-        this.cipher.update(inBuffer, outBuffer);
-
-        ByteBuf output = msg.getCompressed().readSlice(msg.getCompressed().readableBytes() - 8);
+        ByteBuf encrypted = msg.getCompressed();
+        int length = encrypted.readableBytes();
+        if (length < EncryptionTrailer.LENGTH) {
+            throw new CorruptedFrameException("Encrypted batch is too short");
+        }
 
-        if (VALIDATE) {
-            ByteBuf trailer = msg.getCompressed().readSlice(8);
+        ByteBuf buf;
+        if (encrypted.hasArray()) {
+            buf = encrypted.retainedSlice();
+        } else {
+            buf = ctx.alloc().heapBuffer(length);
+            buf.writeBytes(encrypted, encrypted.readerIndex(), length);
+        }
 
-            byte[] actual = new byte[8];
-            trailer.readBytes(actual);
+        try {
+            byte[] array = buf.array();
+            int offset = buf.arrayOffset() + buf.readerIndex();
+            // Copy-safe so we can use the same array.
+            this.cipher.update(array, offset, length, array, offset);
 
-            byte[] expected = BedrockEncryptionEncoder.generateTrailer(output, this.key, this.packetCounter);
+            ByteBuf output = buf.readSlice(length - EncryptionTrailer.LENGTH);
 
-            if (!Arrays.equals(expected, actual)) {
-                throw new CorruptedFrameException("Invalid encryption trailer");
+            if (VALIDATE) {
+                this.trailer.generate(output);
+                if (!this.trailer.matches(buf)) {
+                    throw new CorruptedFrameException("Invalid encryption trailer");
+                }
             }
-        }
 
-        msg.setCompressed(output.retain());
-        out.add(msg.retain());
+            msg.setCompressed(output.retain());
+            out.add(msg.retain());
+        } finally {
+            buf.release();
+        }
     }
 }
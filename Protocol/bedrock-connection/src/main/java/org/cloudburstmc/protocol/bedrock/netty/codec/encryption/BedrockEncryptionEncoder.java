@@ -1,51 +1,47 @@
 package org.cloudburstmc.protocol.bedrock.netty.codec.encryption;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageEncoder;
-import io.netty.util.concurrent.FastThreadLocal;
-import lombok.RequiredArgsConstructor;
 import org.cloudburstmc.protocol.bedrock.netty.BedrockBatchWrapper;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
-import java.nio.ByteBuffer;
-import java.security.MessageDigest;
-import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
 
-@RequiredArgsConstructor
+/**
+ * Encrypts batches together with their {@link EncryptionTrailer trailer}.
+ * <p>
+ * The payload is copied once into a pooled heap buffer and encrypted in place through the array API of
+ * {@link Cipher}, which avoids the temporary arrays the JCE allocates for direct {@link java.nio.ByteBuffer}s.
+ */
 public class BedrockEncryptionEncoder extends MessageToMessageEncoder<BedrockBatchWrapper> {
 
     public static final String NAME = "bedrock-encryption-encoder";
 
-    private static final FastThreadLocal<MessageDigest> DIGEST = new FastThreadLocal<MessageDigest>() {
-        @Override
-        protected MessageDigest initialValue() {
-            try {
-                return MessageDigest.getInstance("SHA-256");
-            } catch (Exception e) {
-                throw new AssertionError(e);
-            }
-        }
-    };
-
-    private final AtomicLong packetCounter = new AtomicLong();
-    private final SecretKey key;
+    private final EncryptionTrailer trailer;
     private final Cipher cipher;
 
+    public BedrockEncryptionEncoder(SecretKey key, Cipher cipher) {
+        this.trailer = new EncryptionTrailer(key);
+        this.cipher = cipher;
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, BedrockBatchWrapper in, List<Object> out) throws Exception {
-        ByteBuf buf = ctx.alloc().ioBuffer(in.getCompressed().readableBytes() + 8);
+        ByteBuf compressed = in.getCompressed();
+        int length = compressed.readableBytes();
+
+        ByteBuf buf = ctx.alloc().heapBuffer(length + EncryptionTrailer.LENGTH);
         try {
-            ByteBuffer trailer = ByteBuffer.wrap(generateTrailer(in.getCompressed(), this.key, this.packetCounter));
-            ByteBuffer inBuffer = in.getCompressed().nioBuffer();
-            ByteBuffer outBuffer = buf.nioBuffer(0, in.getCompressed().readableBytes() + 8);
+            buf.writeBytes(compressed, compressed.readerIndex(), length);
+            this.trailer.generate(buf);
 
-            int index = this.cipher.update(inBuffer, outBuffer);
-            index += this.cipher.update(trailer, outBuffer);
+            byte[] array = buf.array();
+            int offset = buf.arrayOffset();
+            // Copy-safe so we can use the same array.
+            int index = this.cipher.update(array, offset, length, array, offset);
+            index += this.cipher.update(this.trailer.getHash(), 0, EncryptionTrailer.LENGTH, array, offset + index);
 
             buf.writerIndex(index);
             in.setCompressed(buf.retain());
@@ -54,22 +50,4 @@ public class BedrockEncryptionEncoder extends MessageToMessageEncoder<BedrockBat
             buf.release();
         }
     }
-
-    static byte[] generateTrailer(ByteBuf buf, SecretKey key, AtomicLong counter) {
-        MessageDigest digest = DIGEST.get();
-        ByteBuf counterBuf = ByteBufAllocator.DEFAULT.directBuffer(8);
-        try {
-            counterBuf.writeLongLE(counter.getAndIncrement());
-            ByteBuffer keyBuffer = ByteBuffer.wrap(key.getEncoded());
-
-            digest.update(counterBuf.nioBuffer(0, 8));
-            digest.update(buf.nioBuffer(buf.readerIndex(), buf.readableBytes()));
-            digest.update(keyBuffer);
-            byte[] hash = digest.digest();
-            return Arrays.copyOf(hash, 8);
-        } finally {
-            counterBuf.release();
-            digest.reset();
-        }
-    }
 }
@@ -0,0 +1,87 @@
+package org.cloudburstmc.protocol.bedrock.netty.codec.encryption;
+
+import io.netty.buffer.ByteBuf;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes the 8 byte batch trailer, the start of {@code SHA-256(counter || payload || key)}.
+ * <p>
+ * Key bytes, the counter bytes and the hash output are kept per instance, so once the digest has processed
+ * its first direct buffer no further allocations are made. Instances are bound to a single channel and are not
+ * thread safe.
+ */
+final class EncryptionTrailer {
+
+    static final int LENGTH = 8;
+
+    private final MessageDigest digest;
+    private final byte[] key;
+    private final byte[] counterBytes = new byte[8];
+    private final byte[] hash;
+    private long counter;
+
+    EncryptionTrailer(SecretKey key) {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+        this.key = key.getEncoded();
+        this.hash = new byte[this.digest.getDigestLength()];
+    }
+
+    /**
+     * Hashes the readable bytes of the buffer with the next counter value. The trailer is available from
+     * {@link #getHash()} until the next call.
+     *
+     * @param buf payload, its indexes are not modified
+     */
+    void generate(ByteBuf buf) throws DigestException {
+        long counter = this.counter++;
+        for (int i = 0; i < 8; i++) {
+            this.counterBytes[i] = (byte) (counter >>> (i << 3));
+        }
+
+        this.digest.update(this.counterBytes);
+        this.update(buf, buf.readerIndex(), buf.readableBytes());
+        this.digest.update(this.key);
+        this.digest.digest(this.hash, 0, this.hash.length);
+    }
+
+    /**
+     * @return the backing hash array, only the first {@link #LENGTH} bytes form the trailer
+     */
+    byte[] getHash() {
+        return this.hash;
+    }
+
+    /**
+     * @param buf buffer holding the received trailer at its reader index
+     * @return true if the received trailer matches the last generated one
+     */
+    boolean matches(ByteBuf buf) {
+        int index = buf.readerIndex();
+        int diff = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            diff |= this.hash[i] ^ buf.getByte(index + i);
+        }
+        return diff == 0;
+    }
+
+    private void update(ByteBuf buf, int index, int length) {
+        if (buf.hasArray()) {
+            this.digest.update(buf.array(), buf.arrayOffset() + index, length);
+        } else if (buf.nioBufferCount() == 1) {
+            this.digest.update(buf.internalNioBuffer(index, length));
+        } else {
+            for (ByteBuffer buffer : buf.nioBuffers(index, length)) {
+                this.digest.update(buffer);
+            }
+        }
+    }
+}
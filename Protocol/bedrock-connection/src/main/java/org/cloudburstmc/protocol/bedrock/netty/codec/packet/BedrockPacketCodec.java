@@ -8,6 +8,8 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 import org.cloudburstmc.protocol.bedrock.PacketDirection;
 import org.cloudburstmc.protocol.bedrock.codec.BedrockCodec;
 import org.cloudburstmc.protocol.bedrock.codec.BedrockCodecHelper;
+import org.cloudburstmc.protocol.bedrock.codec.PacketPool;
+import org.cloudburstmc.protocol.bedrock.codec.PacketSerializeException;
 import org.cloudburstmc.protocol.bedrock.codec.compat.BedrockCompat;
 import org.cloudburstmc.protocol.bedrock.data.PacketRecipient;
 import org.cloudburstmc.protocol.bedrock.netty.BedrockPacketWrapper;
@@ -26,6 +28,8 @@ public abstract class BedrockPacketCodec extends MessageToMessageCodec<ByteBuf,
     private BedrockCodecHelper helper = codec.createHelper();
 
     private PacketRecipient inboundRecipient;
+    private PacketDecodeFilter decodeFilter = PacketDecodeFilter.ALL;
+    private PacketPool packetPool;
 
     @Override
     public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
@@ -69,7 +73,11 @@ public abstract class BedrockPacketCodec extends MessageToMessageCodec<ByteBuf,
             int index = msg.readerIndex();
             this.decodeHeader(msg, wrapper);
             wrapper.setHeaderLength(msg.readerIndex() - index);
-            wrapper.setPacket(this.codec.tryDecode(helper, msg, wrapper.getPacketId(), this.inboundRecipient));
+            int packetId = wrapper.getPacketId();
+            if (this.decodeFilter.shouldDecode(packetId, this.codec.getPacketClass(packetId))) {
+                wrapper.setPacket(this.codec.tryDecode(helper, msg, packetId, this.inboundRecipient, this.packetPool));
+                wrapper.setPacketPool(this.packetPool);
+            }
             out.add(wrapper.retain());
         } catch (Throwable t) {
             if (log.isDebugEnabled()) {
@@ -81,6 +89,27 @@ public abstract class BedrockPacketCodec extends MessageToMessageCodec<ByteBuf,
         }
     }
 
+    /**
+     * Deserializes the body of a packet that was skipped by the {@link PacketDecodeFilter}.
+     * The decoded packet is stored in the wrapper so subsequent calls return the same instance.
+     *
+     * @param wrapper wrapper produced by this codec
+     * @return decoded packet
+     */
+    public BedrockPacket decodePacket(BedrockPacketWrapper wrapper) throws PacketSerializeException {
+        BedrockPacket packet = wrapper.getPacket();
+        if (packet != null) {
+            return packet;
+        }
+
+        ByteBuf buffer = wrapper.getPacketBuffer().duplicate();
+        buffer.skipBytes(wrapper.getHeaderLength());
+        packet = this.codec.tryDecode(helper, buffer, wrapper.getPacketId(), this.inboundRecipient, this.packetPool);
+        wrapper.setPacket(packet);
+        wrapper.setPacketPool(this.packetPool);
+        return packet;
+    }
+
     public abstract void encodeHeader(ByteBuf buf, BedrockPacketWrapper msg);
 
     public abstract void decodeHeader(ByteBuf buf, BedrockPacketWrapper msg);
@@ -104,4 +133,26 @@ public abstract class BedrockPacketCodec extends MessageToMessageCodec<ByteBuf,
     public BedrockCodecHelper getHelper() {
         return helper;
     }
+
+    public final void setDecodeFilter(PacketDecodeFilter decodeFilter) {
+        this.decodeFilter = requireNonNull(decodeFilter, "Decode filter cannot be null");
+    }
+
+    public final PacketDecodeFilter getDecodeFilter() {
+        return decodeFilter;
+    }
+
+    /**
+     * Sets the pool inbound packets are taken from. Pooled packets are returned to the pool once their
+     * {@link BedrockPacketWrapper} is released.
+     *
+     * @param packetPool packet pool, or null to disable pooling
+     */
+    public final void setPacketPool(PacketPool packetPool) {
+        this.packetPool = packetPool;
+    }
+
+    public final PacketPool getPacketPool() {
+        return packetPool;
+    }
 }
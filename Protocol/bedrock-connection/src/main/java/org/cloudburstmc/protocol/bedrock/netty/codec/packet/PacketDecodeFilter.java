@@ -0,0 +1,23 @@
+package org.cloudburstmc.protocol.bedrock.netty.codec.packet;
+
+import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket;
+
+/**
+ * Decides whether {@link BedrockPacketCodec} should deserialize an inbound packet body.
+ * <p>
+ * Packets that are rejected are passed on with only their header read; the raw buffer stays available in the
+ * {@link org.cloudburstmc.protocol.bedrock.netty.BedrockPacketWrapper} and the body can still be decoded on demand
+ * through {@link BedrockPacketCodec#decodePacket(org.cloudburstmc.protocol.bedrock.netty.BedrockPacketWrapper)}.
+ */
+@FunctionalInterface
+public interface PacketDecodeFilter {
+
+    PacketDecodeFilter ALL = (packetId, packetClass) -> true;
+
+    /**
+     * @param packetId    packet ID read from the header
+     * @param packetClass packet class registered for the ID in the current codec, or null if the ID is unknown
+     * @return true if the packet body should be deserialized eagerly
+     */
+    boolean shouldDecode(int packetId, Class<? extends BedrockPacket> packetClass);
+}
@@ -2,6 +2,7 @@ package org.cloudburstmc.protocol.bedrock.netty.initializer;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
 import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
 import org.cloudburstmc.protocol.bedrock.BedrockPeer;
 import org.cloudburstmc.protocol.bedrock.BedrockSession;
@@ -15,6 +16,7 @@ import org.cloudburstmc.protocol.bedrock.netty.codec.packet.BedrockPacketCodec;
 import org.cloudburstmc.protocol.bedrock.netty.codec.packet.BedrockPacketCodec_v1;
 import org.cloudburstmc.protocol.bedrock.netty.codec.packet.BedrockPacketCodec_v2;
 import org.cloudburstmc.protocol.bedrock.netty.codec.packet.BedrockPacketCodec_v3;
+import org.cloudburstmc.protocol.common.util.NioZlib;
 import org.cloudburstmc.protocol.common.util.Zlib;
 
 public abstract class BedrockChannelInitializer<T extends BedrockSession> extends ChannelInitializer<Channel> {
@@ -22,14 +24,29 @@ public abstract class BedrockChannelInitializer<T extends BedrockSession> extend
     public static final int RAKNET_MINECRAFT_ID = 0xFE;
     private static final FrameIdCodec RAKNET_FRAME_CODEC = new FrameIdCodec(RAKNET_MINECRAFT_ID);
     private static final BedrockBatchDecoder BATCH_DECODER = new BedrockBatchDecoder();
-
-    private static final CompressionStrategy ZLIB_RAW_STRATEGY = new SimpleCompressionStrategy(new ZlibCompression(Zlib.RAW));
-    private static final CompressionStrategy ZLIB_STRATEGY = new SimpleCompressionStrategy(new ZlibCompression(Zlib.DEFAULT));
+    /**
+     * Looked up by name because the option is newer than the RakNet transport this module is compiled against.
+     * Transports without it reject the option.
+     */
+    private static final ChannelOption<Boolean> RAK_COMPOSITE_SPLIT_PACKETS =
+            ChannelOption.valueOf(RakChannelOption.class, "RAK_COMPOSITE_SPLIT_PACKETS");
+
+    /**
+     * Use the {@link NioZlib} engine where the runtime supports it. Set {@code bedrock.nioZlib} to false
+     * to always use the array based {@link Zlib} implementation.
+     */
+    private static final boolean NIO_ZLIB = Boolean.parseBoolean(System.getProperty("bedrock.nioZlib", "true")) && NioZlib.isSupported();
+
+    private static final CompressionStrategy ZLIB_RAW_STRATEGY = new SimpleCompressionStrategy(createZlibCompression(true));
+    private static final CompressionStrategy ZLIB_STRATEGY = new SimpleCompressionStrategy(createZlibCompression(false));
     private static final CompressionStrategy SNAPPY_STRATEGY = new SimpleCompressionStrategy(new SnappyCompression());
     private static final CompressionStrategy NOOP_STRATEGY = new SimpleCompressionStrategy(new NoopCompression());
 
     @Override
     protected final void initChannel(Channel channel) throws Exception {
+        // Split batches are not copied on reassembly. NioZlib reads the parts in place, the other
+        // decompressors and the encryption decoder copy buffers that are not one contiguous region
+        channel.config().setOption(RAK_COMPOSITE_SPLIT_PACKETS, true);
         this.preInitChannel(channel);
 
         channel.pipeline()
@@ -68,6 +85,13 @@ public abstract class BedrockChannelInitializer<T extends BedrockSession> extend
         }
     }
 
+    public static BatchCompression createZlibCompression(boolean raw) {
+        if (NIO_ZLIB) {
+            return new NioZlibCompression(raw ? NioZlib.RAW : NioZlib.DEFAULT);
+        }
+        return new ZlibCompression(raw ? Zlib.RAW : Zlib.DEFAULT);
+    }
+
     private static CompressionStrategy getCompression(CompressionAlgorithm algorithm) {
         if (algorithm == PacketCompressionAlgorithm.ZLIB) {
             return ZLIB_RAW_STRATEGY;
@@ -0,0 +1,25 @@
+plugins {
+    id("java")
+    alias(libs.plugins.jmh)
+}
+
+dependencies {
+    jmh(project(":Protocol:bedrock-connection"))
+    jmh(libs.bundles.netty)
+    // The in-tree transport, so network benchmarks measure local RakNet changes and can use its emulated network
+    jmh(project(":Network:transport-raknet"))
+}
+
+// ./gradlew :Protocol:benchmarks:jmh                          run every suite
+// ./gradlew :Protocol:benchmarks:jmh -Pjmh.includes=Compression  run matching suites only
+// ./gradlew :Protocol:benchmarks:jmh -Pjmh.includes=EmulatedNetwork  RakNet delivery under latency and loss
+// Results are written to build/results/jmh/results.json
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    (project.findProperty("jmh.includes") as String?)?.let { includes.add(it) }
+    // Allocation rates per operation are part of every result, see gc.alloc.rate.norm
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    failOnError.set(true)
+    jvmArgsAppend.add("-Djava.awt.headless=true")
+}
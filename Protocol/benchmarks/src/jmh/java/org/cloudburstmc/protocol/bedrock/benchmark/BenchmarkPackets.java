@@ -0,0 +1,139 @@
+package org.cloudburstmc.protocol.bedrock.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
+import org.cloudburstmc.math.vector.Vector3f;
+import org.cloudburstmc.protocol.bedrock.codec.BedrockCodec;
+import org.cloudburstmc.protocol.bedrock.codec.BedrockCodecHelper;
+import org.cloudburstmc.protocol.bedrock.codec.v860.Bedrock_v860;
+import org.cloudburstmc.protocol.bedrock.codec.v898.Bedrock_v898;
+import org.cloudburstmc.protocol.bedrock.packet.*;
+import org.cloudburstmc.protocol.common.util.VarInts;
+
+import java.util.Random;
+
+/**
+ * Representative packets and batch payloads shared by the benchmarks. Everything is generated from a fixed
+ * seed so results stay comparable between runs.
+ */
+public final class BenchmarkPackets {
+
+    private BenchmarkPackets() {
+    }
+
+    public static BedrockCodec codec(String version) {
+        switch (version) {
+            case "898":
+                return Bedrock_v898.CODEC;
+            case "860":
+                return Bedrock_v860.CODEC;
+            default:
+                throw new IllegalArgumentException("Unknown codec " + version);
+        }
+    }
+
+    /**
+     * @param name packet name as used in benchmark parameters
+     * @return a new packet, the caller owns reference counted packets
+     */
+    public static BedrockPacket create(String name, Random random) {
+        switch (name) {
+            case "MovePlayer": {
+                MovePlayerPacket packet = new MovePlayerPacket();
+                packet.setRuntimeEntityId(random.nextInt(10_000));
+                packet.setPosition(Vector3f.from(random.nextFloat() * 1000, 64 + random.nextFloat() * 10, random.nextFloat() * 1000));
+                packet.setRotation(Vector3f.from(random.nextFloat() * 90, random.nextFloat() * 360, random.nextFloat() * 360));
+                packet.setMode(MovePlayerPacket.Mode.NORMAL);
+                packet.setOnGround(true);
+                packet.setTick(random.nextInt(1_000_000));
+                return packet;
+            }
+            case "MoveEntityDelta": {
+                MoveEntityDeltaPacket packet = new MoveEntityDeltaPacket();
+                packet.setRuntimeEntityId(random.nextInt(10_000));
+                packet.getFlags().add(MoveEntityDeltaPacket.Flag.HAS_X);
+                packet.getFlags().add(MoveEntityDeltaPacket.Flag.HAS_Z);
+                packet.getFlags().add(MoveEntityDeltaPacket.Flag.HAS_YAW);
+                packet.setX(random.nextFloat() * 1000);
+                packet.setZ(random.nextFloat() * 1000);
+                packet.setYaw(random.nextFloat() * 360);
+                return packet;
+            }
+            case "SetEntityMotion": {
+                SetEntityMotionPacket packet = new SetEntityMotionPacket();
+                packet.setRuntimeEntityId(random.nextInt(10_000));
+                packet.setMotion(Vector3f.from(random.nextFloat(), random.nextFloat(), random.nextFloat()));
+                return packet;
+            }
+            case "Text": {
+                TextPacket packet = new TextPacket();
+                packet.setType(TextPacket.Type.CHAT);
+                packet.setSourceName("Player" + random.nextInt(100));
+                packet.setMessage("Hello there, this is a fairly ordinary chat message #" + random.nextInt(1000));
+                packet.setXuid("");
+                return packet;
+            }
+            case "LevelChunk": {
+                LevelChunkPacket packet = new LevelChunkPacket();
+                packet.setChunkX(random.nextInt(64));
+                packet.setChunkZ(random.nextInt(64));
+                packet.setSubChunksLength(8);
+                packet.setData(Unpooled.wrappedBuffer(chunkData(random, 8)));
+                return packet;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown packet " + name);
+        }
+    }
+
+    /**
+     * Builds an uncompressed batch payload of roughly the given size, mostly movement packets with occasional
+     * chat and chunk data, the way a busy server sends them.
+     */
+    public static ByteBuf batch(BedrockCodec codec, int size, Random random) {
+        BedrockCodecHelper helper = codec.createHelper();
+        ByteBuf batch = ByteBufAllocator.DEFAULT.directBuffer(size + 1024);
+        ByteBuf packetBuf = ByteBufAllocator.DEFAULT.buffer();
+        try {
+            while (batch.readableBytes() < size) {
+                int roll = random.nextInt(100);
+                String name = roll < 40 ? "MoveEntityDelta" : roll < 70 ? "MovePlayer" : roll < 90 ? "SetEntityMotion" :
+                        roll < 98 || size < 16384 ? "Text" : "LevelChunk";
+                BedrockPacket packet = create(name, random);
+                try {
+                    packetBuf.clear();
+                    VarInts.writeUnsignedInt(packetBuf, codec.getPacketDefinition(packet.getClass()).getId());
+                    codec.tryEncode(helper, packetBuf, packet);
+                } finally {
+                    ReferenceCountUtil.release(packet);
+                }
+                VarInts.writeUnsignedInt(batch, packetBuf.readableBytes());
+                batch.writeBytes(packetBuf);
+            }
+            return batch;
+        } catch (Exception e) {
+            batch.release();
+            throw new IllegalStateException(e);
+        } finally {
+            packetBuf.release();
+        }
+    }
+
+    /**
+     * Sub chunk storage that compresses like real terrain: a small palette with long runs of the same block.
+     */
+    private static byte[] chunkData(Random random, int subChunks) {
+        byte[] data = new byte[subChunks * 4096 / 2 + 256];
+        int index = 0;
+        while (index < data.length) {
+            int run = 16 + random.nextInt(256);
+            byte value = (byte) random.nextInt(4);
+            for (int i = 0; i < run && index < data.length; i++) {
+                data[index++] = value;
+            }
+        }
+        return data;
+    }
+}
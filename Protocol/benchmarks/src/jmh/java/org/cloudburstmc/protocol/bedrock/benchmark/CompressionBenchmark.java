@@ -0,0 +1,90 @@
+package org.cloudburstmc.protocol.bedrock.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.cloudburstmc.protocol.bedrock.netty.codec.compression.*;
+import org.cloudburstmc.protocol.common.util.NioZlib;
+import org.cloudburstmc.protocol.common.util.Zlib;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch compression on payloads assembled from encoded packets. {@code zlib} and {@code nio-zlib} compare the
+ * array based {@link Zlib} with the {@link NioZlib} engine; run with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"zlib", "nio-zlib", "snappy", "none"})
+    public String algorithm;
+
+    @Param({"512", "8192", "131072"})
+    public int size;
+
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext ctx;
+    private BatchCompression compression;
+    private ByteBuf uncompressed;
+    private ByteBuf compressed;
+
+    @Setup
+    public void setup() throws Exception {
+        switch (this.algorithm) {
+            case "zlib":
+                this.compression = new ZlibCompression(Zlib.RAW);
+                break;
+            case "nio-zlib":
+                this.compression = new NioZlibCompression(NioZlib.RAW);
+                break;
+            case "snappy":
+                this.compression = new SnappyCompression();
+                break;
+            case "none":
+                this.compression = new NoopCompression();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown algorithm " + this.algorithm);
+        }
+
+        this.channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        this.ctx = this.channel.pipeline().firstContext();
+        this.uncompressed = BenchmarkPackets.batch(BenchmarkPackets.codec("898"), this.size, new Random(42));
+        this.compressed = this.compression.encode(this.ctx, this.uncompressed.duplicate());
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.uncompressed.release();
+        this.compressed.release();
+        this.channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int compress() throws Exception {
+        ByteBuf compressed = this.compression.encode(this.ctx, this.uncompressed.duplicate());
+        try {
+            return compressed.readableBytes();
+        } finally {
+            compressed.release();
+        }
+    }
+
+    @Benchmark
+    public int decompress() throws Exception {
+        ByteBuf decompressed = this.compression.decode(this.ctx, this.compressed.duplicate());
+        try {
+            return decompressed.readableBytes();
+        } finally {
+            decompressed.release();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.cloudburstmc.protocol.bedrock.benchmark;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import org.cloudburstmc.netty.channel.emulated.EmulatedNetwork;
+import org.cloudburstmc.netty.channel.raknet.RakChannelFactory;
+import org.cloudburstmc.netty.channel.raknet.RakCongestionController;
+import org.cloudburstmc.netty.channel.raknet.config.RakChannelOption;
+import org.cloudburstmc.protocol.bedrock.BedrockClientSession;
+import org.cloudburstmc.protocol.bedrock.BedrockServerSession;
+import org.cloudburstmc.protocol.bedrock.codec.BedrockCodec;
+import org.cloudburstmc.protocol.bedrock.netty.initializer.BedrockChannelInitializer;
+import org.cloudburstmc.protocol.bedrock.netty.initializer.BedrockClientInitializer;
+import org.cloudburstmc.protocol.bedrock.netty.initializer.BedrockServerInitializer;
+import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket;
+import org.cloudburstmc.protocol.bedrock.packet.BedrockPacketHandler;
+import org.cloudburstmc.protocol.common.PacketSignal;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A server and client session set up by {@link BedrockChannelInitializer} talking over an {@link EmulatedNetwork}.
+ * One operation sends a burst of packets from the server and waits until the client handled all of them, so the
+ * score is the time to deliver the burst through RakNet's congestion control and retransmission at the given
+ * latency and loss. The network is seeded, so runs with the same parameters see the same losses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmulatedNetworkBenchmark {
+
+    private static final InetSocketAddress SERVER_ADDRESS = new InetSocketAddress("127.0.0.1", 19132);
+
+    /**
+     * One-way latency in milliseconds
+     */
+    @Param({"0", "25"})
+    public int latency;
+
+    @Param({"0", "0.01", "0.05"})
+    public double loss;
+
+    @Param({"SLIDING_WINDOW", "BBR"})
+    public String congestionController;
+
+    @Param({"256"})
+    public int packetsPerBurst;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel clientChannel;
+    private BedrockServerSession serverSession;
+    private BedrockPacket[] packets;
+    private final AtomicInteger received = new AtomicInteger();
+
+    @Setup
+    public void setup() throws Exception {
+        BedrockCodec codec = BenchmarkPackets.codec("898");
+        RakCongestionController.Factory controller = "BBR".equals(this.congestionController) ?
+                RakCongestionController.Factory.BBR : RakCongestionController.Factory.SLIDING_WINDOW;
+
+        EmulatedNetwork network = new EmulatedNetwork(42)
+                .setLatency(this.latency, TimeUnit.MILLISECONDS)
+                .setJitter(this.latency / 5, TimeUnit.MILLISECONDS);
+        this.group = new DefaultEventLoopGroup(2);
+
+        CompletableFuture<BedrockServerSession> serverSession = new CompletableFuture<>();
+        this.serverChannel = new ServerBootstrap()
+                .channelFactory(RakChannelFactory.server(network))
+                .group(this.group)
+                .option(RakChannelOption.RAK_GUID, ThreadLocalRandom.current().nextLong())
+                .childOption(RakChannelOption.RAK_CONGESTION_CONTROLLER, controller)
+                .childHandler(new BedrockServerInitializer() {
+                    @Override
+                    protected void initSession(BedrockServerSession session) {
+                        session.setCodec(codec);
+                        serverSession.complete(session);
+                    }
+                })
+                .bind(SERVER_ADDRESS).sync().channel();
+
+        this.clientChannel = new Bootstrap()
+                .channelFactory(RakChannelFactory.client(network))
+                .group(this.group)
+                .option(RakChannelOption.RAK_PROTOCOL_VERSION, 11)
+                .option(RakChannelOption.RAK_CONGESTION_CONTROLLER, controller)
+                .handler(new BedrockClientInitializer() {
+                    @Override
+                    protected void initSession(BedrockClientSession session) {
+                        session.setCodec(codec);
+                        session.setPacketHandler(new BedrockPacketHandler() {
+                            @Override
+                            public PacketSignal handlePacket(BedrockPacket packet) {
+                                received.incrementAndGet();
+                                return PacketSignal.HANDLED;
+                            }
+                        });
+                    }
+                })
+                .connect(SERVER_ADDRESS).sync().channel();
+        this.serverSession = serverSession.get(10, TimeUnit.SECONDS);
+
+        // The handshake is not part of the measurement and runs without loss
+        network.setLoss(this.loss);
+
+        Random random = new Random(42);
+        String[] names = {"MoveEntityDelta", "SetEntityMotion", "MoveEntityDelta", "Text"};
+        this.packets = new BedrockPacket[this.packetsPerBurst];
+        for (int i = 0; i < this.packets.length; i++) {
+            this.packets[i] = BenchmarkPackets.create(names[i % names.length], random);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.clientChannel.close().sync();
+        this.serverChannel.close().sync();
+        this.group.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    public int deliverBurst() {
+        int target = this.received.get() + this.packets.length;
+        for (int i = 0; i < this.packets.length - 1; i++) {
+            this.serverSession.sendPacket(this.packets[i]);
+        }
+        this.serverSession.sendPacketImmediately(this.packets[this.packets.length - 1]);
+
+        int received;
+        while ((received = this.received.get()) < target) {
+            LockSupport.parkNanos(10_000);
+        }
+        return received;
+    }
+}
@@ -0,0 +1,94 @@
+package org.cloudburstmc.protocol.bedrock.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.cloudburstmc.protocol.bedrock.data.PacketCompressionAlgorithm;
+import org.cloudburstmc.protocol.bedrock.netty.BedrockPacketWrapper;
+import org.cloudburstmc.protocol.bedrock.netty.codec.FrameIdCodec;
+import org.cloudburstmc.protocol.bedrock.netty.codec.batch.BedrockBatchEncoder;
+import org.cloudburstmc.protocol.bedrock.netty.codec.compression.CompressionCodec;
+import org.cloudburstmc.protocol.bedrock.netty.codec.encryption.BedrockEncryptionEncoder;
+import org.cloudburstmc.protocol.bedrock.netty.codec.packet.BedrockPacketCodec;
+import org.cloudburstmc.protocol.bedrock.netty.codec.packet.BedrockPacketCodec_v3;
+import org.cloudburstmc.protocol.bedrock.netty.initializer.BedrockChannelInitializer;
+import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket;
+import org.cloudburstmc.protocol.bedrock.util.EncryptionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full outbound path of one flush: packet serialization, batching, compression, encryption and framing,
+ * laid out in the same order as {@link BedrockChannelInitializer} and {@code BedrockPeer#enableEncryption}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutboundPipelineBenchmark {
+
+    @Param({"1", "16", "64"})
+    public int packetsPerBatch;
+
+    @Param({"ZLIB", "SNAPPY"})
+    public String compression;
+
+    @Param({"true", "false"})
+    public boolean encryption;
+
+    private EmbeddedChannel channel;
+    private BedrockPacket[] packets;
+
+    @Setup
+    public void setup() {
+        SecretKey key = new SecretKeySpec(new byte[32], "AES");
+        PacketCompressionAlgorithm algorithm = PacketCompressionAlgorithm.valueOf(this.compression);
+
+        this.channel = new EmbeddedChannel();
+        this.channel.pipeline().addLast(FrameIdCodec.NAME, new FrameIdCodec(BedrockChannelInitializer.RAKNET_MINECRAFT_ID));
+        if (this.encryption) {
+            this.channel.pipeline().addLast(BedrockEncryptionEncoder.NAME,
+                    new BedrockEncryptionEncoder(key, EncryptionUtils.createCipher(true, true, key)));
+        }
+        this.channel.pipeline().addLast(CompressionCodec.NAME,
+                new CompressionCodec(BedrockChannelInitializer.getCompression(algorithm, 11, false), true));
+        this.channel.pipeline().addLast(BedrockBatchEncoder.NAME, new BedrockBatchEncoder());
+        BedrockPacketCodec packetCodec = new BedrockPacketCodec_v3();
+        this.channel.pipeline().addLast(BedrockPacketCodec.NAME, packetCodec);
+        packetCodec.setCodec(BenchmarkPackets.codec("898"));
+
+        Random random = new Random(42);
+        String[] names = {"MoveEntityDelta", "MovePlayer", "SetEntityMotion", "MoveEntityDelta", "Text"};
+        this.packets = new BedrockPacket[this.packetsPerBatch];
+        for (int i = 0; i < this.packets.length; i++) {
+            this.packets[i] = BenchmarkPackets.create(names[i % names.length], random);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int flush() {
+        for (BedrockPacket packet : this.packets) {
+            this.channel.write(BedrockPacketWrapper.create(0, 0, 0, packet, null));
+        }
+        this.channel.flush();
+
+        int bytes = 0;
+        Object msg;
+        while ((msg = this.channel.readOutbound()) != null) {
+            bytes += ((ByteBuf) msg).readableBytes();
+            ReferenceCountUtil.release(msg);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,70 @@
+package org.cloudburstmc.protocol.bedrock.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
+import org.cloudburstmc.protocol.bedrock.codec.BedrockCodec;
+import org.cloudburstmc.protocol.bedrock.codec.BedrockCodecHelper;
+import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of single packets through {@link BedrockCodec#tryEncode} and {@link BedrockCodec#tryDecode}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PacketCodecBenchmark {
+
+    @Param({"898", "860"})
+    public String codecVersion;
+
+    @Param({"MovePlayer", "MoveEntityDelta", "SetEntityMotion", "Text", "LevelChunk"})
+    public String packetName;
+
+    private BedrockCodec codec;
+    private BedrockCodecHelper helper;
+    private BedrockPacket packet;
+    private int packetId;
+    private ByteBuf encodeBuffer;
+    private ByteBuf encoded;
+
+    @Setup
+    public void setup() throws Exception {
+        this.codec = BenchmarkPackets.codec(this.codecVersion);
+        this.helper = this.codec.createHelper();
+        this.packet = BenchmarkPackets.create(this.packetName, new Random(42));
+        this.packetId = this.codec.getPacketDefinition(this.packet.getClass()).getId();
+
+        this.encodeBuffer = ByteBufAllocator.DEFAULT.directBuffer(64 * 1024);
+        this.encoded = ByteBufAllocator.DEFAULT.directBuffer();
+        this.codec.tryEncode(this.helper, this.encoded, this.packet);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ReferenceCountUtil.release(this.packet);
+        this.encodeBuffer.release();
+        this.encoded.release();
+    }
+
+    @Benchmark
+    public int encode() throws Exception {
+        this.encodeBuffer.clear();
+        this.codec.tryEncode(this.helper, this.encodeBuffer, this.packet);
+        return this.encodeBuffer.writerIndex();
+    }
+
+    @Benchmark
+    public BedrockPacket decode() throws Exception {
+        BedrockPacket decoded = this.codec.tryDecode(this.helper, this.encoded.duplicate(), this.packetId);
+        ReferenceCountUtil.release(decoded);
+        return decoded;
+    }
+}
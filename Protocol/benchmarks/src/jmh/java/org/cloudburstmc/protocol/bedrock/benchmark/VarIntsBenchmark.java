@@ -0,0 +1,117 @@
+package org.cloudburstmc.protocol.bedrock.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.cloudburstmc.protocol.common.util.VarInts;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link VarInts} over {@value #COUNT} values per operation. Sizes follow what packets carry: mostly one and two
+ * byte values with some large entity IDs and negative deltas.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(VarIntsBenchmark.COUNT)
+public class VarIntsBenchmark {
+
+    static final int COUNT = 1024;
+
+    private final int[] ints = new int[COUNT];
+    private final long[] longs = new long[COUNT];
+    private ByteBuf buffer;
+    private ByteBuf encodedInts;
+    private ByteBuf encodedUnsignedInts;
+    private ByteBuf encodedLongs;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < COUNT; i++) {
+            int roll = random.nextInt(100);
+            this.ints[i] = roll < 60 ? random.nextInt(128) : roll < 85 ? random.nextInt(16384) : roll < 95 ? -random.nextInt(4096) : random.nextInt();
+            this.longs[i] = roll < 50 ? random.nextInt(16384) : random.nextLong() >>> random.nextInt(64);
+        }
+
+        this.buffer = ByteBufAllocator.DEFAULT.directBuffer(COUNT * 10);
+        this.encodedInts = ByteBufAllocator.DEFAULT.directBuffer(COUNT * 5);
+        this.encodedUnsignedInts = ByteBufAllocator.DEFAULT.directBuffer(COUNT * 5);
+        this.encodedLongs = ByteBufAllocator.DEFAULT.directBuffer(COUNT * 10);
+        for (int i = 0; i < COUNT; i++) {
+            VarInts.writeInt(this.encodedInts, this.ints[i]);
+            VarInts.writeUnsignedInt(this.encodedUnsignedInts, this.ints[i]);
+            VarInts.writeLong(this.encodedLongs, this.longs[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.buffer.release();
+        this.encodedInts.release();
+        this.encodedUnsignedInts.release();
+        this.encodedLongs.release();
+    }
+
+    @Benchmark
+    public int writeInt() {
+        ByteBuf buffer = this.buffer.clear();
+        for (int value : this.ints) {
+            VarInts.writeInt(buffer, value);
+        }
+        return buffer.writerIndex();
+    }
+
+    @Benchmark
+    public int writeUnsignedInt() {
+        ByteBuf buffer = this.buffer.clear();
+        for (int value : this.ints) {
+            VarInts.writeUnsignedInt(buffer, value);
+        }
+        return buffer.writerIndex();
+    }
+
+    @Benchmark
+    public int writeLong() {
+        ByteBuf buffer = this.buffer.clear();
+        for (long value : this.longs) {
+            VarInts.writeLong(buffer, value);
+        }
+        return buffer.writerIndex();
+    }
+
+    @Benchmark
+    public int readInt() {
+        ByteBuf buffer = this.encodedInts.readerIndex(0);
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += VarInts.readInt(buffer);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int readUnsignedInt() {
+        ByteBuf buffer = this.encodedUnsignedInts.readerIndex(0);
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += VarInts.readUnsignedInt(buffer);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long readLong() {
+        ByteBuf buffer = this.encodedLongs.readerIndex(0);
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += VarInts.readLong(buffer);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,108 @@
+package org.cloudburstmc.protocol.bedrock.netty.codec.encryption;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.cloudburstmc.protocol.bedrock.netty.BedrockBatchWrapper;
+import org.cloudburstmc.protocol.bedrock.util.EncryptionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of batch encryption and decryption. {@code bytes} in the secondary results is the payload
+ * throughput, divide by 2^20 for MB/s. Allocations per batch are reported by the gc profiler as
+ * {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptionBenchmark {
+
+    @Param({"64", "1024", "16384", "262144"})
+    public int size;
+
+    @Param({"true", "false"})
+    public boolean ctr;
+
+    private BedrockEncryptionEncoder encoder;
+    private BedrockEncryptionDecoder decoder;
+    private ChannelHandlerContext encoderContext;
+    private ChannelHandlerContext decoderContext;
+    private EmbeddedChannel channel;
+    private ByteBuf payload;
+    private final List<Object> out = new ArrayList<>(1);
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public long bytes;
+    }
+
+    @Setup
+    public void setup() {
+        byte[] keyBytes = new byte[32];
+        ThreadLocalRandom.current().nextBytes(keyBytes);
+        SecretKey key = new SecretKeySpec(keyBytes, "AES");
+
+        this.encoder = new BedrockEncryptionEncoder(key, EncryptionUtils.createCipher(this.ctr, true, key));
+        this.decoder = new BedrockEncryptionDecoder(key, EncryptionUtils.createCipher(this.ctr, false, key));
+        this.channel = new EmbeddedChannel();
+        this.channel.pipeline().addLast(BedrockEncryptionEncoder.NAME, this.encoder);
+        this.channel.pipeline().addLast(BedrockEncryptionDecoder.NAME, this.decoder);
+        this.encoderContext = this.channel.pipeline().context(this.encoder);
+        this.decoderContext = this.channel.pipeline().context(this.decoder);
+
+        byte[] data = new byte[this.size];
+        ThreadLocalRandom.current().nextBytes(data);
+        this.payload = ByteBufAllocator.DEFAULT.directBuffer(this.size).writeBytes(data);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.payload.release();
+        this.channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void encode(Bytes bytes) throws Exception {
+        BedrockBatchWrapper batch = BedrockBatchWrapper.newInstance(this.payload.retainedDuplicate(), null);
+        try {
+            this.encoder.encode(this.encoderContext, batch, this.out);
+        } finally {
+            this.release();
+            batch.release();
+        }
+        bytes.bytes += this.size;
+    }
+
+    @Benchmark
+    public void encodeDecode(Bytes bytes) throws Exception {
+        BedrockBatchWrapper batch = BedrockBatchWrapper.newInstance(this.payload.retainedDuplicate(), null);
+        try {
+            this.encoder.encode(this.encoderContext, batch, this.out);
+            this.release();
+            this.decoder.decode(this.decoderContext, batch, this.out);
+        } finally {
+            this.release();
+            batch.release();
+        }
+        bytes.bytes += this.size;
+    }
+
+    private void release() {
+        for (int i = 0; i < this.out.size(); i++) {
+            ((BedrockBatchWrapper) this.out.get(i)).release();
+        }
+        this.out.clear();
+    }
+}
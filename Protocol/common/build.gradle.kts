@@ -14,4 +14,5 @@ dependencies {
     api(libs.fastutil.obj.int.maps)
     api(libs.math)
     api(libs.netty.buffer)
+    testImplementation(libs.bundles.junit.jupiter)
 }
\ No newline at end of file
@@ -0,0 +1,207 @@
+package org.cloudburstmc.protocol.common.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Zlib implementation working directly on {@link ByteBuffer}s using the buffer overloads of
+ * {@link Deflater} and {@link Inflater} (Java 11, Android API 30). Input and output are never copied
+ * through intermediate byte arrays and composite inputs are fed component by component.
+ * <p>
+ * Output buffers are sized from a running compression ratio instead of a fixed multiple of the input.
+ * On runtimes without the buffer overloads every call is delegated to {@link Zlib}.
+ */
+public class NioZlib {
+    public static final NioZlib DEFAULT = new NioZlib(false, Zlib.DEFAULT);
+    public static final NioZlib RAW = new NioZlib(true, Zlib.RAW);
+
+    private static final boolean SUPPORTED = isSupported0();
+    private static final int CHUNK = 8192;
+    private static final int SLACK = 64;
+    private static final int MAX_INITIAL_INFLATED = 64 * 1024;
+    private static final float RATIO_WEIGHT = 0.125f;
+
+    private final FastThreadLocal<Inflater> inflaterLocal;
+    private final FastThreadLocal<Deflater> deflaterLocal;
+    private final Zlib fallback;
+
+    private volatile float deflateRatio = 0.5f;
+    private volatile float inflateRatio = 4f;
+
+    private NioZlib(boolean raw, Zlib fallback) {
+        this.fallback = fallback;
+        this.inflaterLocal = new FastThreadLocal<Inflater>() {
+            @Override
+            protected Inflater initialValue() {
+                return new Inflater(raw);
+            }
+
+            @Override
+            protected void onRemoval(Inflater value) {
+                value.end();
+            }
+        };
+        this.deflaterLocal = new FastThreadLocal<Deflater>() {
+            @Override
+            protected Deflater initialValue() {
+                return new Deflater(7, raw);
+            }
+
+            @Override
+            protected void onRemoval(Deflater value) {
+                value.end();
+            }
+        };
+    }
+
+    /**
+     * @return true if the runtime provides the {@link ByteBuffer} overloads used by this implementation
+     */
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    private static boolean isSupported0() {
+        try {
+            Deflater.class.getMethod("setInput", ByteBuffer.class);
+            Deflater.class.getMethod("deflate", ByteBuffer.class);
+            Inflater.class.getMethod("setInput", ByteBuffer.class);
+            Inflater.class.getMethod("inflate", ByteBuffer.class);
+            return true;
+        } catch (NoSuchMethodException | SecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Estimates the compressed size of the given number of bytes from the ratio observed so far.
+     * The estimate never exceeds the zlib worst case bound.
+     *
+     * @param length uncompressed length
+     * @return expected compressed length
+     */
+    public int estimateDeflatedSize(int length) {
+        int bound = length + (length >> 12) + (length >> 14) + (length >> 25) + 13;
+        int estimate = (int) (length * this.deflateRatio * 1.125f) + SLACK;
+        return Math.min(estimate, bound);
+    }
+
+    /**
+     * Estimates the decompressed size of the given number of compressed bytes.
+     * The ratio is shared by every connection using this instance, so the estimate is capped at
+     * 64 KiB and larger output grows as it is written instead of being reserved up front.
+     *
+     * @param length compressed length
+     * @param maxSize maximum decompressed size, or zero if unbounded
+     * @return expected decompressed length
+     */
+    public int estimateInflatedSize(int length, int maxSize) {
+        long estimate = (long) (length * this.inflateRatio * 1.125f) + SLACK;
+        if (maxSize > 0) {
+            estimate = Math.min(estimate, maxSize);
+        }
+        return (int) Math.min(estimate, MAX_INITIAL_INFLATED);
+    }
+
+    public ByteBuf inflate(ByteBuf buffer, int maxSize) throws DataFormatException {
+        if (!SUPPORTED) {
+            return this.fallback.inflate(buffer, maxSize);
+        }
+
+        int length = buffer.readableBytes();
+        ByteBuf decompressed = ByteBufAllocator.DEFAULT.ioBuffer(this.estimateInflatedSize(length, maxSize));
+        try {
+            Inflater inflater = this.inflaterLocal.get();
+            inflater.reset();
+
+            if (buffer.nioBufferCount() == 1) {
+                this.inflate(inflater, buffer.internalNioBuffer(buffer.readerIndex(), length), decompressed, maxSize);
+            } else {
+                for (ByteBuffer input : buffer.nioBuffers(buffer.readerIndex(), length)) {
+                    this.inflate(inflater, input, decompressed, maxSize);
+                    if (inflater.finished()) {
+                        break;
+                    }
+                }
+            }
+
+            if (length > 0) {
+                this.inflateRatio += ((float) decompressed.readableBytes() / length - this.inflateRatio) * RATIO_WEIGHT;
+            }
+            return decompressed;
+        } catch (DataFormatException | RuntimeException e) {
+            decompressed.release();
+            throw e;
+        }
+    }
+
+    private void inflate(Inflater inflater, ByteBuffer input, ByteBuf decompressed, int maxSize) throws DataFormatException {
+        inflater.setInput(input);
+        while (!inflater.finished() && !inflater.needsInput()) {
+            decompressed.ensureWritable(CHUNK);
+            int index = decompressed.writerIndex();
+            int written = inflater.inflate(decompressed.internalNioBuffer(index, decompressed.writableBytes()));
+            if (written < 1 && inflater.needsDictionary()) {
+                throw new DataFormatException("Preset dictionaries are not supported");
+            }
+            decompressed.writerIndex(index + written);
+            if (maxSize > 0 && decompressed.writerIndex() >= maxSize) {
+                throw new DataFormatException("Inflated data exceeds maximum size");
+            }
+        }
+    }
+
+    public void deflate(ByteBuf uncompressed, ByteBuf compressed, int level) throws DataFormatException {
+        if (!SUPPORTED) {
+            this.fallback.deflate(uncompressed, compressed, level);
+            return;
+        }
+
+        int length = uncompressed.readableBytes();
+        int start = compressed.writerIndex();
+        compressed.ensureWritable(this.estimateDeflatedSize(length));
+
+        Deflater deflater = this.deflaterLocal.get();
+        deflater.reset();
+        deflater.setLevel(level);
+
+        if (uncompressed.nioBufferCount() == 1) {
+            this.deflate(deflater, uncompressed.internalNioBuffer(uncompressed.readerIndex(), length), compressed);
+        } else {
+            for (ByteBuffer input : uncompressed.nioBuffers(uncompressed.readerIndex(), length)) {
+                this.deflate(deflater, input, compressed);
+            }
+        }
+
+        deflater.finish();
+        while (!deflater.finished()) {
+            this.deflateInto(deflater, compressed);
+        }
+
+        if (length > 0) {
+            this.deflateRatio += ((float) (compressed.writerIndex() - start) / length - this.deflateRatio) * RATIO_WEIGHT;
+        }
+    }
+
+    private void deflate(Deflater deflater, ByteBuffer input, ByteBuf compressed) {
+        deflater.setInput(input);
+        while (!deflater.needsInput()) {
+            this.deflateInto(deflater, compressed);
+        }
+    }
+
+    private void deflateInto(Deflater deflater, ByteBuf compressed) {
+        if (!compressed.isWritable()) {
+            compressed.ensureWritable(CHUNK);
+        }
+        int index = compressed.writerIndex();
+        int written = deflater.deflate(compressed.internalNioBuffer(index, compressed.writableBytes()));
+        compressed.writerIndex(index + written);
+    }
+}
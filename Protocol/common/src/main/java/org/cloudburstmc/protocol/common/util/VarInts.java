@@ -30,6 +30,15 @@ public class VarInts {
         return (int) decode(buffer, 32);
     }
 
+    /**
+     * @param value unsigned value
+     * @return number of bytes {@link #writeUnsignedInt(ByteBuf, int)} writes for the value
+     */
+    public static int sizeOfUnsignedInt(int value) {
+        // Every 7 significant bits take one byte, zero still takes one
+        return (31 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
     public static void writeLong(ByteBuf buffer, long value) {
         encode(buffer, (value << 1) ^ (value >> 63));
     }
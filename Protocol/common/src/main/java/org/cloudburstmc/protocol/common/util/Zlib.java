@@ -7,7 +7,6 @@ import java.util.zip.Inflater;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
-import io.netty.buffer.CompositeByteBuf;
 import io.netty.util.concurrent.FastThreadLocal;
 
 /**
@@ -51,8 +50,8 @@ public class Zlib {
         ByteBuf decompressed = ByteBufAllocator.DEFAULT.ioBuffer();
 
         try {
-            if (!buffer.isDirect() || (buffer instanceof CompositeByteBuf && ((CompositeByteBuf) buffer).numComponents() > 1)) {
-                // We don't have a direct buffer. Create one.
+            if (!buffer.isDirect() || buffer.nioBufferCount() != 1) {
+                // We don't have a contiguous direct buffer, composites and slices of them included. Create one.
                 ByteBuf temporary = ByteBufAllocator.DEFAULT.ioBuffer();
                 temporary.writeBytes(buffer);
                 source = temporary;
@@ -99,7 +98,7 @@ public class Zlib {
         ByteBuf destination = null;
         ByteBuf source = null;
         try {
-            if (!uncompressed.isDirect() || (uncompressed instanceof CompositeByteBuf && ((CompositeByteBuf) uncompressed).numComponents() > 1)) {
+            if (!uncompressed.isDirect() || uncompressed.nioBufferCount() != 1) {
                 // Source is not a direct buffer. Work on a temporary direct buffer and then write the contents out.
                 source = ByteBufAllocator.DEFAULT.ioBuffer();
                 source.writeBytes(uncompressed);
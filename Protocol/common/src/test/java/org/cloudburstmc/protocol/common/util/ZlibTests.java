@@ -0,0 +1,127 @@
+package org.cloudburstmc.protocol.common.util;
+
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ZlibTests {
+
+    private static final int PART_SIZE = 1400;
+
+    @Test
+    public void testInflateSplitBatch() throws Exception {
+        this.assertInflatesSplitBatch(Zlib.DEFAULT::inflate, false);
+        this.assertInflatesSplitBatch(Zlib.RAW::inflate, true);
+    }
+
+    @Test
+    public void testNioInflateSplitBatch() throws Exception {
+        this.assertInflatesSplitBatch(NioZlib.DEFAULT::inflate, false);
+        this.assertInflatesSplitBatch(NioZlib.RAW::inflate, true);
+    }
+
+    @Test
+    public void testDeflateComposite() throws Exception {
+        byte[] data = payload();
+        CompositeByteBuf composite = split(data);
+        ByteBuf compressed = ByteBufAllocator.DEFAULT.ioBuffer();
+        ByteBuf inflated = null;
+        try {
+            Zlib.RAW.deflate(composite.slice(), compressed, 7);
+            inflated = Zlib.RAW.inflate(compressed, 0);
+            Assertions.assertArrayEquals(data, ByteBufUtil.getBytes(inflated));
+        } finally {
+            composite.release();
+            compressed.release();
+            if (inflated != null) {
+                inflated.release();
+            }
+        }
+    }
+
+    @Test
+    public void testNioInflateEstimateIsCapped() throws Exception {
+        // Zeros compress extremely well and pull the shared ratio far up
+        byte[] data = new byte[4 * 1024 * 1024];
+        ByteBuf compressed = Unpooled.directBuffer().writeBytes(deflate(data, true));
+        compressed.skipBytes(1);
+        try {
+            for (int i = 0; i < 32; i++) {
+                NioZlib.RAW.inflate(compressed.duplicate(), 0).release();
+            }
+            Assertions.assertTrue(NioZlib.RAW.estimateInflatedSize(compressed.readableBytes(), 0) <= 64 * 1024);
+        } finally {
+            compressed.release();
+        }
+    }
+
+    private void assertInflatesSplitBatch(Inflate inflate, boolean raw) throws Exception {
+        byte[] data = payload();
+        CompositeByteBuf composite = split(deflate(data, raw));
+        // The frame and compression codecs hand a slice of the reassembled buffer to the decompressor
+        ByteBuf slice = composite.retainedSlice(1, composite.readableBytes() - 1);
+        composite.release();
+
+        ByteBuf inflated = null;
+        try {
+            Assertions.assertTrue(slice.isDirect());
+            Assertions.assertTrue(slice.nioBufferCount() > 1);
+            inflated = inflate.inflate(slice, 0);
+            Assertions.assertArrayEquals(data, ByteBufUtil.getBytes(inflated));
+        } finally {
+            slice.release();
+            if (inflated != null) {
+                inflated.release();
+            }
+        }
+    }
+
+    private static byte[] payload() {
+        Random random = new Random(42);
+        byte[] data = new byte[64 * 1024];
+        // Compressible but not trivially so, to get a batch spanning several parts
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) random.nextInt(16);
+        }
+        return data;
+    }
+
+    private static byte[] deflate(byte[] data, boolean raw) {
+        Deflater deflater = new Deflater(7, raw);
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[data.length * 2];
+        int length = deflater.deflate(buffer);
+        deflater.end();
+
+        // Leading byte stands in for the frame ID the codecs skip
+        byte[] framed = new byte[length + 1];
+        System.arraycopy(buffer, 0, framed, 1, length);
+        return framed;
+    }
+
+    /**
+     * Spreads the data over direct components the way composite split packet reassembly does.
+     */
+    private static CompositeByteBuf split(byte[] data) {
+        CompositeByteBuf composite = ByteBufAllocator.DEFAULT.compositeDirectBuffer(data.length / PART_SIZE + 1);
+        for (int offset = 0; offset < data.length; offset += PART_SIZE) {
+            int length = Math.min(PART_SIZE, data.length - offset);
+            ByteBuf part = Unpooled.directBuffer(length).writeBytes(data, offset, length);
+            composite.addComponent(true, part);
+        }
+        return composite;
+    }
+
+    private interface Inflate {
+        ByteBuf inflate(ByteBuf buffer, int maxSize) throws DataFormatException;
+    }
+}
@@ -1,10 +1,38 @@
 package com.project.lumina.client.constructors
 
+import com.project.lumina.client.game.InterruptiblePacketHandler
 import com.project.lumina.relay.listener.LuminaRelayPacketListener
 import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket
 
 interface ComposedPacketHandler : LuminaRelayPacketListener {
 
+    /**
+     * Packet types handled by this handler itself, or null for every packet.
+     */
+    val ownInterestedPackets: Set<Class<out BedrockPacket>>?
+        get() = null
+
+    /**
+     * Handlers packets are passed on to. A packet is decoded if this handler or any child is interested,
+     * so a single child without declared interest means every packet is decoded and lazy decoding has no effect.
+     */
+    val childHandlers: Iterable<InterruptiblePacketHandler>
+        get() = emptyList()
+
+    override val interestedPackets: Set<Class<out BedrockPacket>>?
+        get() {
+            val interested = HashSet(ownInterestedPackets ?: return null)
+            for (handler in childHandlers) {
+                interested.addAll(handler.interestedPackets ?: return null)
+            }
+            return interested
+        }
+
+    override fun isInterested(packetClass: Class<out BedrockPacket>): Boolean {
+        val own = ownInterestedPackets ?: return true
+        return packetClass in own || childHandlers.any { it.interestedPackets?.contains(packetClass) ?: true }
+    }
+
     fun beforePacketBound(packet: BedrockPacket): Boolean
 
     fun afterPacketBound(packet: BedrockPacket) {}
@@ -2,6 +2,9 @@ package com.project.lumina.client.constructors
 
 import android.util.Log
 import com.project.lumina.client.util.TextComponentUtil
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap
 import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket
 import org.cloudburstmc.protocol.bedrock.packet.PlayerListPacket
 import org.cloudburstmc.protocol.bedrock.packet.StartGamePacket
@@ -14,6 +17,7 @@ class GameDataManager {
 
     private val packetDataStore: ConcurrentHashMap<String, MutableMap<String, Any?>> = ConcurrentHashMap()
     private val currentPlayerList: MutableMap<UUID, PlayerInfo> = Collections.synchronizedMap(mutableMapOf())
+    private val playersByEntityId: Long2ObjectMap<PlayerInfo> = Long2ObjectMaps.synchronize(Long2ObjectOpenHashMap())
 
     data class PlayerInfo(
         val uuid: UUID,
@@ -50,14 +54,19 @@ class GameDataManager {
                         color = entry.color
                     )
 
-                    currentPlayerList[entry.uuid] = playerInfo
+                    currentPlayerList.put(entry.uuid, playerInfo)?.let {
+                        playersByEntityId.remove(it.entityId, it)
+                    }
+                    playersByEntityId.put(entry.entityId, playerInfo)
                     //logCurrentPlayerList()
                 }
             }
 
             PlayerListPacket.Action.REMOVE -> {
                 packet.entries.forEach { entry ->
-                    currentPlayerList.remove(entry.uuid)
+                    currentPlayerList.remove(entry.uuid)?.let {
+                        playersByEntityId.remove(it.entityId, it)
+                    }
                 }
             }
         }
@@ -67,6 +76,7 @@ class GameDataManager {
     fun clearPlayerList() {
         val clearedCount = currentPlayerList.size
         currentPlayerList.clear()
+        playersByEntityId.clear()
         Log.i("PlayerList", "Cleared player list ($clearedCount players)")
     }
 
@@ -100,7 +110,7 @@ class GameDataManager {
     }
 
     fun getPlayerByEntityId(entityId: Long): PlayerInfo? {
-        return currentPlayerList.values.find { it.entityId == entityId }
+        return playersByEntityId.get(entityId)
     }
 
     fun getPlayerCount(): Int = currentPlayerList.size
@@ -3,6 +3,7 @@ package com.project.lumina.client.constructors
 import android.util.Log
 import com.project.lumina.client.application.AppContext
 import com.project.lumina.client.game.InterceptablePacket
+import com.project.lumina.client.game.InterruptiblePacketHandler
 import com.project.lumina.client.game.entity.EntityUnknown
 import com.project.lumina.client.game.entity.LocalPlayer
 import com.project.lumina.client.game.entity.MobList
@@ -66,6 +67,11 @@ class NetBound(val luminaRelaySession: LuminaRelaySession) : ComposedPacketHandl
 
     private val proxyPlayerNames: MutableSet<String> = Collections.synchronizedSet(mutableSetOf())
 
+    // ownInterestedPackets stays null: the session state kept here, in localPlayer and in level reads many
+    // packet types that are not declared yet, so lazy decoding still decodes everything for this session
+    override val childHandlers: Iterable<InterruptiblePacketHandler>
+        get() = GameManager.elements
+
     
     val gameDataManager = GameDataManager()
     val entityStorage = EntityStorage(this, 50f)
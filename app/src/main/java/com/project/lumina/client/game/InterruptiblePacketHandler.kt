@@ -4,6 +4,13 @@ import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket
 
 interface InterruptiblePacketHandler {
 
+    /**
+     * Packet types this handler reads, or null to receive every packet. Undeclared handlers keep
+     * relay lazy decoding from skipping anything, see [com.project.lumina.client.constructors.ComposedPacketHandler].
+     */
+    val interestedPackets: Set<Class<out BedrockPacket>>?
+        get() = null
+
     fun beforePacketBound(interceptablePacket: InterceptablePacket)
 
     fun afterPacketBound(packet: BedrockPacket) {}
@@ -2,6 +2,7 @@ package com.project.lumina.client.game.entity
 
 import com.project.lumina.client.game.inventory.EntityInventory
 import com.project.lumina.client.game.utils.constants.Effect
+import com.project.lumina.client.game.world.EntitySpatialIndex
 import org.cloudburstmc.math.vector.Vector2f
 import org.cloudburstmc.math.vector.Vector3f
 import org.cloudburstmc.protocol.bedrock.data.AttributeData
@@ -90,6 +91,11 @@ open class Entity(open val runtimeEntityId: Long, open val uniqueEntityId: Long)
 
     var rideEntity: Long? = null
 
+    /**
+     * Column of the entity in [EntitySpatialIndex], maintained by the index.
+     */
+    internal var spatialCell = EntitySpatialIndex.NO_CELL
+
     open val attributes = mutableMapOf<String, AttributeData>()
 
     open val metadata = EntityDataMap()
@@ -87,10 +87,8 @@ class CritBotElement(iconResId: Int = AssetManager.getAsset("ic_angle")) : Eleme
     }
 
     private fun findTargetsInRange(): List<Entity> {
-        return session.level.entityMap.values
+        return session.level.nearbyEntities(maxRange)
             .filter { it is Player && it !is LocalPlayer && !isBot(it as Player) }
-            .filter { it.distance(session.localPlayer) <= maxRange }
-            .sortedBy { it.distance(session.localPlayer) }
             .take(1) 
     }
 
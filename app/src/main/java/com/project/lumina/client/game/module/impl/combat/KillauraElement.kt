@@ -138,9 +138,7 @@ class KillauraElement(iconResId: Int = AssetManager.getAsset("ic_sword_cross_bla
         else -> "Unknown"
     }
 
-    private fun getTargets(): List<Entity> = session.level.entityMap.values.filter {
-        it.distance(session.localPlayer) <= range && it.isValid()
-    }
+    private fun getTargets(): List<Entity> = session.level.nearbyEntities(range).filter { it.isValid() }
 
     private fun Entity.isValid(): Boolean = when (this) {
         is LocalPlayer -> false
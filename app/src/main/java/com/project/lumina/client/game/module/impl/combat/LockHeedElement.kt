@@ -124,10 +124,8 @@ class LockHeedElement(iconResId: Int = AssetManager.getAsset("ic_lockheed")) : E
         Vector3f.from(jitter(), jitter(), jitter())
 
     private fun findNearestTarget(player: LocalPlayer): Entity? {
-        return session.level.entityMap.values
-            .filter { it is Player && it != player && !isBot(it) }
-            .filter { it.vec3Position.distance(player.vec3Position) <= maxRange }
-            .minByOrNull { it.vec3Position.distance(player.vec3Position) }
+        return session.level.nearbyEntities(maxRange)
+            .firstOrNull { it is Player && it != player && !isBot(it) }
     }
 
     private fun isBot(entity: Entity): Boolean {
@@ -121,10 +121,8 @@ class QuickAttackElement(iconResId: Int = AssetManager.getAsset("ic_flash_black_
     private var originalPosition: Vector3f? = null
 
     private fun findTargets(): List<Entity> {
-        return session.level.entityMap.values
+        return session.level.nearbyEntities(maxRange)
             .filter { it.runtimeEntityId != session.localPlayer.runtimeEntityId && it.isValidTarget() }
-            .filter { it.distance(session.localPlayer) < maxRange }
-            .sortedBy { it.distance(session.localPlayer) }
             .take(if (multiTarget) maxTargets else 1)
     }
 
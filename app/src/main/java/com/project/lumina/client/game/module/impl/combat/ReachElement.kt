@@ -83,15 +83,13 @@ class ReachElement(iconResId: Int = AssetManager.getAsset("ic_ghost_black_24dp")
    }
 
     private fun findTargets(): List<Entity> {
-        return session.level.entityMap.values
+        return session.level.nearbyEntities(combatReach)
             .filter { entity ->
                 entity is Player &&
                         entity !is LocalPlayer &&
                         !isBot(entity as Player) &&
-                        entity.distance(session.localPlayer) <= combatReach &&
                         entity.distance(session.localPlayer) > 0f
             }
-            .sortedBy { it.distance(session.localPlayer) }
     }
 
     private fun isBot(player: Player): Boolean {
@@ -146,9 +146,8 @@ class TPAuraElement(iconResId: Int = AssetManager.getAsset("ic_dice_3_outline_bl
     }
 
     private fun findTargetsInRange(): List<Entity> {
-        return session.level.entityMap.values
-            .filter { entity -> entity.distance(session.localPlayer) < attackRange && entity.isTarget() }
-            .sortedBy { it.distance(session.localPlayer) }
+        return session.level.nearbyEntities(attackRange)
+            .filter { entity -> entity.isTarget() }
     }
 
     private fun Entity.isTarget(): Boolean {
@@ -130,10 +130,8 @@ class TriggerBotElement(iconResId: Int = AssetManager.getAsset("ic_bullseye_arro
     }
 
     private fun findTargetsInRange(): List<Entity> {
-        val targets = session.level.entityMap.values
+        val targets = session.level.nearbyEntities(maxRange)
             .filter { it is Player && it !is LocalPlayer && !isBot(it as Player) }
-            .filter { it.distance(session.localPlayer) <= maxRange }
-            .sortedBy { it.distance(session.localPlayer) }
         return if (multiTarget) targets.take(maxTargets) else targets.take(1)
     }
 
@@ -87,14 +87,9 @@ class TargetHud(iconResId: Int = AssetManager.getAsset("ic_target")) : Element(
     }
 
     private fun searchForClosestEntities(): List<Entity> {
-        val entities = session.level.entityMap.values
-            .filter { entity ->
-                val inRange = entity.distance(session.localPlayer) < rangeValue
-                val isTarget = entity.isTarget()
-                 inRange && isTarget
-            }
-            .sortedBy { it.distance(session.localPlayer) } 
-            .take(1) 
+        val entities = session.level.nearbyEntities(rangeValue)
+            .filter { entity -> entity.isTarget() }
+            .take(1)
           return entities
     }
 
@@ -95,10 +95,8 @@ class FarSightElement(iconResId: Int = AssetManager.getAsset("ic_farsight")) : E
     }
 
     private fun findNearestEnemy(player: LocalPlayer): Entity? {
-        return session.level.entityMap.values
-            .filter { it !== player && it is Player && !isBot(it) }
-            .filter { it.vec3Position.distance(player.vec3Position) <= maxRange }
-            .minByOrNull { it.vec3Position.distance(player.vec3Position) }
+        return session.level.nearbyEntities(maxRange)
+            .firstOrNull { it !== player && it is Player && !isBot(it) }
     }
 
     private fun isBot(entity: Entity): Boolean {
@@ -16,6 +16,7 @@ import com.project.lumina.client.constructors.CheatCategory
 import com.project.lumina.client.game.entity.Entity
 import com.project.lumina.client.game.entity.Player
 import com.project.lumina.client.game.entity.LocalPlayer
+import com.project.lumina.client.game.world.EntitySpatialIndex
 import com.project.lumina.client.render.ESPRenderOverlayView
 import com.project.lumina.client.overlay.manager.OverlayManager
 import com.project.lumina.client.R
@@ -25,6 +26,7 @@ import org.cloudburstmc.math.vector.Vector3f
 import org.cloudburstmc.protocol.bedrock.packet.PlayerAuthInputPacket
 import kotlin.math.cos
 import kotlin.math.sin
+import kotlin.math.sqrt
 
 class ESPElement : Element(
     name = "esp",
@@ -32,6 +34,12 @@ class ESPElement : Element(
     displayNameResId = R.string.esp_module_name
 ) {
     companion object {
+        private const val BOX_WIDTH = 0.6f
+        private const val BOX_HEIGHT = 1.8f
+
+        // Distance from the entity position to the farthest corner of its box
+        private val BOX_RADIUS = sqrt(BOX_WIDTH * BOX_WIDTH / 2f + BOX_HEIGHT * BOX_HEIGHT)
+
         private var renderView: ESPRenderOverlayView? = null
 
         fun setRenderView(view: ESPRenderOverlayView) {
@@ -112,8 +120,8 @@ class ESPElement : Element(
     }
 
     private fun getEntityBoxVertices(entity: Entity): Array<Vector3f> {
-        val width = 0.6f
-        val height = 1.8f 
+        val width = BOX_WIDTH
+        val height = BOX_HEIGHT
 
         val pos = entity.vec3Position
         val halfWidth = width / 2f
@@ -222,17 +230,20 @@ class ESPElement : Element(
         if (!isEnabled || !isSessionCreated) return
 
         val player = session.localPlayer
-        val entities = if (showAllEntities) {
-            session.level.entityMap.values
-        } else {
-            session.level.entityMap.values.filterIsInstance<Player>()
-        }
-
-        if (entities.isEmpty()) return
-
         val screenWidth = canvas.width
         val screenHeight = canvas.height
 
+        // Only entities whose box reaches into the cone around the view frustum up to the far plane can be drawn
+        val entities = session.level.spatialIndex.inCone(
+            player.posX, player.posY, player.posZ,
+            player.rotationYaw, player.rotationPitch,
+            EntitySpatialIndex.frustumHalfAngle(fov, screenWidth.toFloat() / screenHeight),
+            128f,
+            BOX_RADIUS
+        ) { showAllEntities || it is Player }
+
+        if (entities.isEmpty()) return
+
         val viewProjMatrix = Matrix4f.createPerspective(fov,
             screenWidth.toFloat() / screenHeight, 0.1f, 128f)
             .mul(Matrix4f.createTranslation(player.vec3Position)
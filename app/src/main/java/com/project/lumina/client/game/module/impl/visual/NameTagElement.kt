@@ -95,8 +95,8 @@ class NameTagElement(iconResId: Int = AssetManager.getAsset("ic_guy_fawkes_mask_
         
         if (session.localPlayer.tickExists % 20 != 0L) return
 
-        session.level.entityMap.values
-            .filter { it.distance(session.localPlayer) < range && it.isTarget() }
+        session.level.nearbyEntities(range)
+            .filter { it.isTarget() }
             .forEach { entity ->
                 
                 if (!originalNames.containsKey(entity.runtimeEntityId)) {
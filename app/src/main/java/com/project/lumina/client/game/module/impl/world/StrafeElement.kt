@@ -111,10 +111,8 @@ class StrafeElement(iconResId: Int = AssetManager.getAsset("ic_run_fast_black_24
     }
 
     private fun findTargetsInRange(): List<Entity> {
-        return session.level.entityMap.values
-            .filter { it.runtimeEntityId != session.localPlayer.runtimeEntityId }
-            .filter { it.distance(session.localPlayer) < targetRange && it.isValidTarget() }
-            .sortedBy { it.distance(session.localPlayer) }
+        return session.level.nearbyEntities(targetRange.toFloat())
+            .filter { it.runtimeEntityId != session.localPlayer.runtimeEntityId && it.isValidTarget() }
     }
 
     private fun Entity.isValidTarget(): Boolean {
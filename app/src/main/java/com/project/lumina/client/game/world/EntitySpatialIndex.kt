@@ -0,0 +1,171 @@
+package com.project.lumina.client.game.world
+
+import com.project.lumina.client.game.entity.Entity
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap
+import kotlin.math.PI
+import kotlin.math.asin
+import kotlin.math.atan
+import kotlin.math.cos
+import kotlin.math.floor
+import kotlin.math.sin
+import kotlin.math.sqrt
+import kotlin.math.tan
+
+/**
+ * Uniform grid over the horizontal position of tracked entities. Entities are bucketed into square columns of
+ * [cellSize] blocks, so range queries only visit the columns overlapping the query instead of every entity.
+ * Distances in queries are still full 3D distances.
+ *
+ * Updated from the packet thread by [Level], queries may come from any thread.
+ */
+class EntitySpatialIndex(private val cellSize: Float = 16f) {
+
+    private val cells = Long2ObjectOpenHashMap<ArrayList<Entity>>()
+
+    @Synchronized
+    fun update(entity: Entity) {
+        val cell = cellKey(cellCoord(entity.posX), cellCoord(entity.posZ))
+        if (cell == entity.spatialCell) return
+
+        removeFromCell(entity)
+        cells.computeIfAbsent(cell) { ArrayList(4) }.add(entity)
+        entity.spatialCell = cell
+    }
+
+    @Synchronized
+    fun remove(entity: Entity) {
+        removeFromCell(entity)
+        entity.spatialCell = NO_CELL
+    }
+
+    @Synchronized
+    fun clear() {
+        cells.values.forEach { bucket -> bucket.forEach { it.spatialCell = NO_CELL } }
+        cells.clear()
+    }
+
+    private fun removeFromCell(entity: Entity) {
+        if (entity.spatialCell == NO_CELL) return
+
+        val bucket = cells.get(entity.spatialCell) ?: return
+        bucket.remove(entity)
+        if (bucket.isEmpty()) {
+            cells.remove(entity.spatialCell)
+        }
+    }
+
+    /**
+     * Calls [action] for every entity within [radius] blocks of the given position.
+     */
+    @Synchronized
+    fun forEachWithin(x: Float, y: Float, z: Float, radius: Float, action: (Entity) -> Unit) {
+        val radiusSq = radius * radius
+        val minX = cellCoord(x - radius)
+        val maxX = cellCoord(x + radius)
+        val minZ = cellCoord(z - radius)
+        val maxZ = cellCoord(z + radius)
+
+        // Huge radii cover more columns than are occupied
+        if ((maxX - minX + 1).toLong() * (maxZ - minZ + 1) > cells.size) {
+            cells.values.forEach { bucket ->
+                bucket.forEach { if (it.distanceSq(x, y, z) <= radiusSq) action(it) }
+            }
+            return
+        }
+
+        for (cellX in minX..maxX) {
+            for (cellZ in minZ..maxZ) {
+                val bucket = cells.get(cellKey(cellX, cellZ)) ?: continue
+                bucket.forEach { if (it.distanceSq(x, y, z) <= radiusSq) action(it) }
+            }
+        }
+    }
+
+    fun within(x: Float, y: Float, z: Float, radius: Float, filter: (Entity) -> Boolean = { true }): List<Entity> {
+        val result = ArrayList<Entity>()
+        forEachWithin(x, y, z, radius) { if (filter(it)) result.add(it) }
+        return result
+    }
+
+    /**
+     * @return up to [count] entities within [radius] blocks accepted by [filter], closest first
+     */
+    fun nearest(
+        x: Float, y: Float, z: Float,
+        count: Int,
+        radius: Float,
+        filter: (Entity) -> Boolean = { true }
+    ): List<Entity> {
+        if (count <= 0) return emptyList()
+        val candidates = within(x, y, z, radius, filter)
+        return if (candidates.size <= count) {
+            candidates.sortedBy { it.distanceSq(x, y, z) }
+        } else {
+            candidates.sortedBy { it.distanceSq(x, y, z) }.subList(0, count)
+        }
+    }
+
+    inline fun <reified T : Entity> nearestOfType(x: Float, y: Float, z: Float, count: Int, radius: Float): List<T> {
+        @Suppress("UNCHECKED_CAST")
+        return nearest(x, y, z, count, radius) { it is T } as List<T>
+    }
+
+    /**
+     * @param yaw       view yaw in degrees, Bedrock convention
+     * @param pitch     view pitch in degrees, positive looks down
+     * @param halfAngle angle in degrees between the view direction and the edge of the cone
+     * @param radius    radius of a sphere around each entity position that only has to touch the cone
+     * @return entities within [range] blocks whose sphere of [radius] around the position intersects the view cone
+     */
+    fun inCone(
+        x: Float, y: Float, z: Float,
+        yaw: Float, pitch: Float,
+        halfAngle: Float,
+        range: Float,
+        radius: Float = 0f,
+        filter: (Entity) -> Boolean = { true }
+    ): List<Entity> {
+        val yawRad = Math.toRadians(yaw.toDouble())
+        val pitchRad = Math.toRadians(pitch.toDouble())
+        val dirX = (-sin(yawRad) * cos(pitchRad)).toFloat()
+        val dirY = (-sin(pitchRad)).toFloat()
+        val dirZ = (cos(yawRad) * cos(pitchRad)).toFloat()
+        val halfAngleRad = Math.toRadians(halfAngle.coerceIn(0f, 180f).toDouble())
+        val cosHalfAngle = cos(halfAngleRad).toFloat()
+
+        val result = ArrayList<Entity>()
+        forEachWithin(x, y, z, range + radius) {
+            val dx = it.posX - x
+            val dy = it.posY - y
+            val dz = it.posZ - z
+            val length = sqrt(dx * dx + dy * dy + dz * dz)
+            val dot = dx * dirX + dy * dirY + dz * dirZ
+            val inside = length <= radius || dot >= cosHalfAngle * length ||
+                    (radius > 0f && dot >= cos((halfAngleRad + asin(radius / length)).coerceAtMost(PI)).toFloat() * length)
+            if (inside && filter(it)) {
+                result.add(it)
+            }
+        }
+        return result
+    }
+
+    private fun cellCoord(value: Float): Int = floor(value / cellSize).toInt()
+
+    companion object {
+
+        const val NO_CELL = Long.MIN_VALUE
+
+        private fun cellKey(x: Int, z: Int): Long = (x.toLong() shl 32) or (z.toLong() and 0xFFFFFFFFL)
+
+        /**
+         * Half angle of the cone enclosing a perspective view frustum.
+         *
+         * @param fov    vertical field of view in degrees
+         * @param aspect width divided by height of the view
+         */
+        fun frustumHalfAngle(fov: Float, aspect: Float): Float {
+            val tanHalf = tan(Math.toRadians(fov / 2.0))
+            return Math.toDegrees(atan(tanHalf * sqrt(1.0 + aspect * aspect))).toFloat()
+        }
+    }
+}
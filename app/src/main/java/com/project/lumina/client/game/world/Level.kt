@@ -12,14 +12,24 @@ import com.project.lumina.client.game.event.GameEvent
 import com.project.lumina.client.game.event.Listenable
 import com.project.lumina.client.constructors.MobAlertManager
 import com.project.lumina.client.game.entity.MobList
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap
 import org.cloudburstmc.protocol.bedrock.packet.AddEntityPacket
 import org.cloudburstmc.protocol.bedrock.packet.AddItemEntityPacket
 import org.cloudburstmc.protocol.bedrock.packet.AddPlayerPacket
 import org.cloudburstmc.protocol.bedrock.packet.BedrockPacket
+import org.cloudburstmc.protocol.bedrock.packet.MobEffectPacket
+import org.cloudburstmc.protocol.bedrock.packet.MoveEntityAbsolutePacket
+import org.cloudburstmc.protocol.bedrock.packet.MoveEntityDeltaPacket
+import org.cloudburstmc.protocol.bedrock.packet.MovePlayerPacket
 import org.cloudburstmc.protocol.bedrock.packet.PlayerListPacket
 import org.cloudburstmc.protocol.bedrock.packet.RemoveEntityPacket
+import org.cloudburstmc.protocol.bedrock.packet.SetEntityDataPacket
+import org.cloudburstmc.protocol.bedrock.packet.SetEntityLinkPacket
 import org.cloudburstmc.protocol.bedrock.packet.StartGamePacket
 import org.cloudburstmc.protocol.bedrock.packet.TakeItemEntityPacket
+import org.cloudburstmc.protocol.bedrock.packet.UpdateAttributesPacket
 import java.util.UUID
 import java.util.concurrent.ConcurrentHashMap
 
@@ -30,7 +40,12 @@ class Level(val session: NetBound) : Listenable {
     override val eventManager = session.eventManager
     private val pendingEvents = mutableListOf<GameEvent>()
     val entityMap = ConcurrentHashMap<Long, Entity>()
+    private val entitiesByUniqueId: Long2ObjectMap<Entity> = Long2ObjectMaps.synchronize(Long2ObjectOpenHashMap())
     val playerMap = ConcurrentHashMap<UUID, PlayerListPacket.Entry>()
+    val spatialIndex = EntitySpatialIndex()
+
+    @Volatile
+    private var nearbySnapshot: NearbySnapshot? = null
 
     private fun safeEmit(event: GameEvent) {
         if (eventManager != null) {
@@ -45,17 +60,97 @@ class Level(val session: NetBound) : Listenable {
     }
 
     fun initFromStartGame(packet: StartGamePacket) {
-        entityMap.clear()
+        clearEntities()
         playerMap.clear()
         Log.i("Level", "Initialized Level from StartGamePacket")
     }
 
 
     fun onDisconnect() {
-        entityMap.clear()
+        clearEntities()
         playerMap.clear()
     }
 
+    fun getEntityByUniqueId(uniqueEntityId: Long): Entity? = entitiesByUniqueId.get(uniqueEntityId)
+
+    private fun addEntity(entity: Entity) {
+        val previous = entityMap.put(entity.runtimeEntityId, entity)
+        if (previous != null) {
+            entitiesByUniqueId.remove(previous.uniqueEntityId, previous)
+        }
+        entitiesByUniqueId.put(entity.uniqueEntityId, entity)
+        if (previous != null) {
+            spatialIndex.remove(previous)
+        }
+        spatialIndex.update(entity)
+    }
+
+    private fun removeEntity(runtimeEntityId: Long): Entity? {
+        val entity = entityMap.remove(runtimeEntityId) ?: return null
+        entitiesByUniqueId.remove(entity.uniqueEntityId, entity)
+        spatialIndex.remove(entity)
+        return entity
+    }
+
+    private fun clearEntities() {
+        entityMap.clear()
+        entitiesByUniqueId.clear()
+        spatialIndex.clear()
+        nearbySnapshot = null
+    }
+
+    /**
+     * Entities within [radius] blocks of the local player, closest first.
+     *
+     * Modules asking during the same tick share one snapshot. It is taken around the player's position at that
+     * tick with the largest radius asked for so far and is refreshed after [SNAPSHOT_MAX_AGE_MS] at the latest.
+     */
+    fun nearbyEntities(radius: Float): List<Entity> {
+        val player = session.localPlayer
+        val tick = player.tickExists
+        val now = System.currentTimeMillis()
+
+        var snapshot = nearbySnapshot
+        if (snapshot == null || snapshot.tick != tick || now - snapshot.time > SNAPSHOT_MAX_AGE_MS || radius > snapshot.radius) {
+            val snapshotRadius = if (snapshot != null && snapshot.tick == tick) maxOf(radius, snapshot.radius) else radius
+            snapshot = NearbySnapshot.take(spatialIndex, player, snapshotRadius, tick, now)
+            nearbySnapshot = snapshot
+        }
+        return snapshot.within(radius)
+    }
+
+    private class NearbySnapshot(
+        val tick: Long,
+        val time: Long,
+        val radius: Float,
+        private val entities: List<Entity>,
+        private val distancesSq: FloatArray
+    ) {
+
+        fun within(radius: Float): List<Entity> {
+            val radiusSq = radius * radius
+            var low = 0
+            var high = distancesSq.size
+            while (low < high) {
+                val mid = (low + high) ushr 1
+                if (distancesSq[mid] <= radiusSq) low = mid + 1 else high = mid
+            }
+            return if (low == entities.size) entities else entities.subList(0, low)
+        }
+
+        companion object {
+
+            fun take(index: EntitySpatialIndex, player: Entity, radius: Float, tick: Long, time: Long): NearbySnapshot {
+                val x = player.posX
+                val y = player.posY
+                val z = player.posZ
+                val entities = index.within(x, y, z, radius) { it !== player }.sortedBy { it.distanceSq(x, y, z) }
+                val distancesSq = FloatArray(entities.size) { entities[it].distanceSq(x, y, z) }
+                return NearbySnapshot(tick, time, radius, entities, distancesSq)
+            }
+        }
+    }
+
     fun onPacketBound(packet: BedrockPacket) {
         when (packet) {
             is AddEntityPacket -> {
@@ -69,7 +164,7 @@ class Level(val session: NetBound) : Listenable {
                     handleSetData(packet.metadata)
                     handleSetAttribute(packet.attributes)
                 }
-                entityMap[packet.runtimeEntityId] = entity
+                addEntity(entity)
                 safeEmit(EventEntitySpawn(session, entity))
                 
                 if (packet.identifier in MobList.mobTypes) {
@@ -85,7 +180,7 @@ class Level(val session: NetBound) : Listenable {
                     move(packet.position)
                     handleSetData(packet.metadata)
                 }
-                entityMap[packet.runtimeEntityId] = entity
+                addEntity(entity)
                 safeEmit(EventEntitySpawn(session, entity))
             }
 
@@ -100,19 +195,18 @@ class Level(val session: NetBound) : Listenable {
                     rotate(packet.rotation)
                     handleSetData(packet.metadata)
                 }
-                entityMap[packet.runtimeEntityId] = entity
+                addEntity(entity)
                 safeEmit(EventEntitySpawn(session, entity))
             }
 
             is RemoveEntityPacket -> {
-                val entityToRemove =
-                    entityMap.values.find { it.uniqueEntityId == packet.uniqueEntityId } ?: return
-                entityMap.remove(entityToRemove.runtimeEntityId)
+                val entityToRemove = entitiesByUniqueId.get(packet.uniqueEntityId) ?: return
+                removeEntity(entityToRemove.runtimeEntityId)
                 safeEmit(EventEntityDespawn(session, entityToRemove))
             }
 
             is TakeItemEntityPacket -> {
-                entityMap.remove(packet.itemRuntimeEntityId)
+                removeEntity(packet.itemRuntimeEntityId)
             }
 
             is PlayerListPacket -> {
@@ -126,16 +220,47 @@ class Level(val session: NetBound) : Listenable {
                 }
             }
             is StartGamePacket -> {
-                entityMap.clear()
+                clearEntities()
                 playerMap.clear()
             }
 
-            else -> {
-                entityMap.values.forEach { entity ->
-                    entity.onPacketBound(packet)
+            else -> dispatchEntityPacket(packet)
+        }
+    }
+
+    /**
+     * Routes an entity update to the one entity it targets instead of offering it to every entity.
+     * Packets no [Entity] handles are dropped here.
+     */
+    private fun dispatchEntityPacket(packet: BedrockPacket) {
+        val runtimeEntityId = when (packet) {
+            is MoveEntityAbsolutePacket -> packet.runtimeEntityId
+            is MoveEntityDeltaPacket -> packet.runtimeEntityId
+            is MovePlayerPacket -> packet.runtimeEntityId
+            is SetEntityDataPacket -> packet.runtimeEntityId
+            is UpdateAttributesPacket -> packet.runtimeEntityId
+            is MobEffectPacket -> packet.runtimeEntityId
+            is SetEntityLinkPacket -> {
+                // Links are addressed by unique ID, only the two linked entities react
+                val link = packet.entityLink
+                entitiesByUniqueId.get(link.from)?.onPacketBound(packet)
+                if (link.to != link.from) {
+                    entitiesByUniqueId.get(link.to)?.onPacketBound(packet)
                 }
+                return
             }
+            else -> return
         }
+        val entity = entityMap[runtimeEntityId] ?: return
+        entity.onPacketBound(packet)
+        if (packet is MoveEntityAbsolutePacket || packet is MoveEntityDeltaPacket || packet is MovePlayerPacket) {
+            spatialIndex.update(entity)
+        }
+    }
+
+    companion object {
+
+        private const val SNAPSHOT_MAX_AGE_MS = 50L
     }
 
 }
\ No newline at end of file
@@ -6,10 +6,17 @@ import com.project.lumina.client.game.event.EventChunkLoad
 import com.project.lumina.client.game.event.GameEvent
 import com.project.lumina.client.game.event.Listenable
 import com.project.lumina.client.game.world.chunk.Chunk
+import io.netty.buffer.ByteBuf
 import org.cloudburstmc.math.vector.Vector3i
 import org.cloudburstmc.protocol.bedrock.data.SubChunkRequestResult
 import org.cloudburstmc.protocol.bedrock.packet.*
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
 import kotlin.math.floor
 
 class World(val session: NetBound) : Listenable {
@@ -17,8 +24,33 @@ class World(val session: NetBound) : Listenable {
     override val eventManager = session.eventManager
     private val pendingEvents = mutableListOf<GameEvent>()
     private val chunks = ConcurrentHashMap<Long, Chunk>()
+    // Chunks queued on the lane, moved to chunks once they are read
+    private val pendingChunks = ConcurrentHashMap<Long, Chunk>()
+    // Chunks whose data was dropped because the lane was too far behind, unknown until they are sent again
+    private val unknownChunks: MutableSet<Long> = ConcurrentHashMap.newKeySet()
+    // Bytes of chunk data waiting on the lane
+    private val queuedBytes = AtomicLong()
     private var viewDistance = -1
 
+    /**
+     * Every change to the chunks runs here in packet order, so block updates always apply after the chunk data
+     * they follow. The queue is unbounded so the relay thread never waits, chunk data beyond
+     * [MAX_QUEUED_BYTES] is dropped instead.
+     */
+    private val lane = ThreadPoolExecutor(
+        1, 1,
+        30, TimeUnit.SECONDS,
+        LinkedBlockingQueue(),
+        ThreadFactory { runnable ->
+            Thread(runnable, "World-ChunkParser-${THREAD_COUNTER.incrementAndGet()}").apply {
+                isDaemon = true
+            }
+        }
+    ).apply {
+        allowCoreThreadTimeOut(true)
+    }
+
+    @Synchronized
     private fun safeEmit(event: GameEvent) {
         if (eventManager != null) {
             if (pendingEvents.isNotEmpty()) {
@@ -32,26 +64,20 @@ class World(val session: NetBound) : Listenable {
     }
 
     fun initFromStartGame(packet: StartGamePacket) {
-        chunks.clear()
+        clearChunks()
         viewDistance = packet.serverChunkTickRange
         Log.i("World", "🌍 Initialized World from StartGamePacket with viewDistance $viewDistance")
     }
 
     fun onPacket(packet: BedrockPacket) {
         when (packet) {
-            is LevelChunkPacket -> {
-                val chunk = Chunk(packet.chunkX, packet.chunkZ, packet.dimension, session)
-                chunk.read(packet.data, packet.subChunksLength)
-                chunks[chunk.hash] = chunk
-
-                safeEmit(EventChunkLoad(session, chunk))
-            }
+            is LevelChunkPacket -> handleLevelChunk(packet)
             is ChunkRadiusUpdatedPacket -> {
                 viewDistance = packet.radius
-                cleanupChunks()
+                submit { cleanupChunks() }
             }
             is SubChunkPacket -> handleSubChunk(packet)
-            is ChangeDimensionPacket -> chunks.clear()
+            is ChangeDimensionPacket -> clearChunks()
             is UpdateBlockPacket -> {
                 if (packet.dataLayer == 0) {
                     val runtimeId = packet.definition?.runtimeId ?: 0
@@ -62,10 +88,20 @@ class World(val session: NetBound) : Listenable {
                     }
                 }
             }
+            is UpdateSubChunkBlocksPacket -> {
+                val blocks = packet.standardBlocks.map { it.position to (it.definition?.runtimeId ?: 0) }
+                submit {
+                    blocks.forEach { (pos, id) -> applyBlockId(pos.x, pos.y, pos.z, id) }
+                }
+            }
         }
     }
 
 
+    /**
+     * Reads the chunk on the lane. The chunk only becomes visible through [getBlockId] once it is read
+     * completely, until then it reports [UNKNOWN_BLOCK_ID].
+     */
     private fun handleLevelChunk(packet: LevelChunkPacket) {
         val chunk = Chunk(
             packet.chunkX,
@@ -73,10 +109,22 @@ class World(val session: NetBound) : Listenable {
             packet.dimension,
             session
         )
-        chunk.read(packet.data, packet.subChunksLength)
-        chunks[chunk.hash] = chunk
-
-        eventManager.emit(EventChunkLoad(session, chunk))
+        val subChunkCount = packet.subChunksLength
+        unknownChunks.remove(chunk.hash)
+        pendingChunks[chunk.hash] = chunk
+
+        val queued = parse(packet.data) { data ->
+            chunk.read(data, subChunkCount)
+            // Not pending anymore if the chunks were cleared after this one was queued
+            if (pendingChunks[chunk.hash] === chunk) {
+                chunks[chunk.hash] = chunk
+                pendingChunks.remove(chunk.hash, chunk)
+                safeEmit(EventChunkLoad(session, chunk))
+            }
+        }
+        if (!queued) {
+            markUnknown(chunk.hash)
+        }
     }
 
     private fun handleSubChunk(packet: SubChunkPacket) {
@@ -84,28 +132,101 @@ class World(val session: NetBound) : Listenable {
         for (subChunk in packet.subChunks) {
             if (subChunk.result != SubChunkRequestResult.SUCCESS) continue
             val pos = subChunk.position.add(center).add(0, 4, 0)
-            getChunk(pos.x, pos.z)?.readSubChunk(pos.y, subChunk.data)
+
+            // Looked up on the lane, by then every chunk queued before is published
+            val queued = parse(subChunk.data) { data ->
+                getChunk(pos.x, pos.z)?.readSubChunk(pos.y, data)
+            }
+            if (!queued) {
+                markUnknown(Chunk.hash(pos.x, pos.z))
+            }
+        }
+    }
+
+    /**
+     * Runs [read] on the lane with a retained slice of [data], so the packet can be forwarded and released
+     * right away.
+     *
+     * @return false if the lane already holds [MAX_QUEUED_BYTES] of chunk data and [data] was dropped
+     */
+    private fun parse(data: ByteBuf, read: (ByteBuf) -> Unit): Boolean {
+        val length = data.readableBytes().toLong()
+        if (queuedBytes.addAndGet(length) > MAX_QUEUED_BYTES) {
+            queuedBytes.addAndGet(-length)
+            return false
+        }
+
+        val slice = data.retainedSlice()
+        submit {
+            try {
+                read(slice)
+            } finally {
+                slice.release()
+                queuedBytes.addAndGet(-length)
+            }
+        }
+        return true
+    }
+
+    /**
+     * Reports the chunk as [UNKNOWN_BLOCK_ID] until it is sent again. A parse already queued for it is not
+     * published and the published chunk is dropped once the lane gets here.
+     */
+    private fun markUnknown(hash: Long) {
+        unknownChunks.add(hash)
+        pendingChunks.remove(hash)
+        submit { chunks.remove(hash) }
+    }
+
+    private fun submit(task: () -> Unit) {
+        lane.execute {
+            try {
+                task()
+            } catch (e: Exception) {
+                Log.e("World", "Failed to update chunks", e)
+            }
         }
     }
 
+    private fun clearChunks() {
+        // Chunks queued until now are not published, the ones already published are dropped in order
+        pendingChunks.clear()
+        unknownChunks.clear()
+        submit { chunks.clear() }
+    }
+
     private fun cleanupChunks() {
         if (viewDistance < 0) return
         val px = floor(session.localPlayer.posX).toInt() shr 4
         val pz = floor(session.localPlayer.posZ).toInt() shr 4
         val limit = viewDistance + 1
 
-        chunks.entries.removeIf { (_, chunk) ->
+        chunks.values.removeIf { chunk ->
             val dx = chunk.x - px
             val dz = chunk.z - pz
             dx * dx + dz * dz > limit * limit
         }
     }
 
+    /**
+     * @return runtime ID of the block, 0 if its chunk is not loaded or [UNKNOWN_BLOCK_ID] while it is being parsed
+     * or its data was dropped
+     */
     fun getBlockId(x: Int, y: Int, z: Int): Int {
-        return getChunkAt(x, z)?.getBlock(x and 15, y, z and 15) ?: 0
+        val hash = Chunk.hash(x shr 4, z shr 4)
+        val chunk = chunks[hash]
+            ?: return if (pendingChunks.containsKey(hash) || hash in unknownChunks) UNKNOWN_BLOCK_ID else 0
+        return chunk.getBlock(x and 15, y, z and 15)
     }
 
+    /**
+     * Applied after all chunk data received before, so the update is not lost while its chunk is being parsed.
+     */
     fun setBlockId(x: Int, y: Int, z: Int, id: Int) {
+        submit { applyBlockId(x, y, z, id) }
+    }
+
+    private fun applyBlockId(x: Int, y: Int, z: Int, id: Int) {
         getChunkAt(x, z)?.setBlock(x and 15, y, z and 15, id)
     }
 
@@ -120,4 +241,13 @@ class World(val session: NetBound) : Listenable {
     fun getBlockIdAt(vec: Vector3i): Int = getBlockId(vec.x, vec.y, vec.z)
 
     fun setBlockIdAt(vec: Vector3i, id: Int) = setBlockId(vec.x, vec.y, vec.z, id)
+
+    companion object {
+
+        const val UNKNOWN_BLOCK_ID = -1
+
+        private const val MAX_QUEUED_BYTES = 32L * 1024 * 1024
+
+        private val THREAD_COUNTER = AtomicInteger()
+    }
 }
@@ -3,23 +3,39 @@ package com.project.lumina.client.game.world.chunk
 import android.util.Log
 import com.project.lumina.client.game.world.chunk.palette.BitArray
 import com.project.lumina.client.game.world.chunk.palette.BitArrayVersion
+import com.project.lumina.client.game.world.chunk.palette.IntPalette
 import com.project.lumina.client.game.world.chunk.palette.Pow2BitArray
 import io.netty.buffer.ByteBuf
 import org.cloudburstmc.protocol.common.util.VarInts
 
+/**
+ * Written from one thread at a time, readable from any thread. A palette is never changed once it is published,
+ * adding an entry publishes a new [Layer] instead, so readers always see words and palette that belong together.
+ */
 class BlockStorage {
-    var bitArray: BitArray
-    val palette = mutableListOf<Int>()
+
+    class Layer(val bitArray: BitArray, val palette: IntPalette)
+
+    @Volatile
+    var layer: Layer
+        private set
+
+    val bitArray: BitArray
+        get() = layer.bitArray
+
+    val palette: IntPalette
+        get() = layer.palette
 
     constructor(version: BitArrayVersion, airId: Int) {
-        bitArray = version.createPalette(MAX_BLOCKS)
+        val palette = IntPalette()
         palette.add(airId)
+        layer = Layer(version.createPalette(MAX_BLOCKS), palette)
     }
 
     constructor(buf: ByteBuf, network: Boolean) {
         val paletteHeader = buf.readByte().toInt()
         val paletteBits = paletteHeader shr 1
-
+        val bitArray: BitArray
 
         if (paletteBits == 0) {
             Log.d("BlockStorage", "Handling single-valued palette (0 bits)")
@@ -60,23 +76,75 @@ class BlockStorage {
         }
 
         val paletteSize = readInt()
+        val palette = IntPalette(paletteSize)
         repeat(paletteSize) {
             palette.add(readInt())
         }
+        layer = Layer(bitArray, palette)
     }
 
     fun getBlock(x: Int, y: Int, z: Int): Int {
         val index = (x shl 8) or (z shl 4) or y
-        return palette[bitArray.get(index)]
+        val layer = layer
+        return layer.palette[layer.bitArray.get(index)]
     }
 
     fun setBlock(x: Int, y: Int, z: Int, id: Int) {
         val index = (x shl 8) or (z shl 4) or y
-        val paletteIndex = palette.indexOf(id).takeIf { it != -1 } ?: run {
-            palette.add(id)
-            palette.lastIndex
+        val current = layer
+        val paletteIndex = current.palette.indexOf(id)
+        if (paletteIndex != -1) {
+            // The entry is already published, so readers can resolve the new index right away
+            current.bitArray.set(index, paletteIndex)
+            return
+        }
+
+        val next = if (current.palette.size > current.bitArray.getVersion().maxEntryValue) {
+            resize(current)
+        } else {
+            Layer(current.bitArray.copy(), current.palette.copy())
+        }
+        next.bitArray.set(index, next.palette.add(id))
+        layer = next
+    }
+
+    /**
+     * Copies [layer] with room for one more palette entry. Entries no block refers to are dropped first, the words
+     * are only repacked with the next [BitArrayVersion] if that frees less than a quarter of the current capacity,
+     * so repeated edits do not compact on every new block.
+     */
+    private fun resize(layer: Layer): Layer {
+        val bitArray = layer.bitArray
+        val blocks = IntArray(MAX_BLOCKS)
+        val used = BooleanArray(layer.palette.size)
+        for (i in 0 until MAX_BLOCKS) {
+            val paletteIndex = bitArray.get(i)
+            blocks[i] = paletteIndex
+            if (paletteIndex < used.size) {
+                used[paletteIndex] = true
+            }
+        }
+
+        // Palette index before compaction to index after
+        val remap = IntArray(layer.palette.size)
+        val ids = layer.palette.toIntArray()
+        val palette = IntPalette(ids.size)
+        for (i in ids.indices) {
+            remap[i] = if (used[i]) palette.add(ids[i]) else 0
+        }
+
+        var version = bitArray.getVersion()
+        val capacity = version.maxEntryValue + 1
+        if (capacity - palette.size <= capacity / 4) {
+            version = version.next ?: version
+        }
+
+        val resized = version.createPalette(MAX_BLOCKS)
+        for (i in 0 until MAX_BLOCKS) {
+            val paletteIndex = blocks[i]
+            resized.set(i, if (paletteIndex < remap.size) remap[paletteIndex] else 0)
         }
-        bitArray.set(index, paletteIndex)
+        return Layer(resized, palette)
     }
 
     companion object {
@@ -15,15 +15,16 @@ class Chunk(
     val is384World: Boolean
         get() = sectionStorage.size > 16
 
+    // Sections are read into a new instance and swapped in, so readers never see a half read section
     fun read(buffer: ByteBuf, subChunkCount: Int) {
         repeat(subChunkCount.coerceAtMost(sectionStorage.size)) {
-            sectionStorage[it].read(buffer)
+            sectionStorage[it] = ChunkSection().apply { read(buffer) }
         }
     }
 
     fun readSubChunk(index: Int, buffer: ByteBuf) {
         if (index in sectionStorage.indices) {
-            sectionStorage[index].read(buffer)
+            sectionStorage[index] = ChunkSection().apply { read(buffer) }
         }
     }
 
@@ -46,7 +46,9 @@ class ChunkSection {
     }
 
     private fun writeStorageLayer(buffer: ByteBuf, storage: BlockStorage) {
-        val bitArray = storage.bitArray
+        val layer = storage.layer
+        val bitArray = layer.bitArray
+        val palette = layer.palette
         val words = bitArray.getWords()
 
         
@@ -58,9 +60,9 @@ class ChunkSection {
         }
 
         
-        VarInts.writeInt(buffer, storage.palette.size)
-        for (runtimeId in storage.palette) {
-            VarInts.writeInt(buffer, runtimeId)
+        VarInts.writeInt(buffer, palette.size)
+        for (i in 0 until palette.size) {
+            VarInts.writeInt(buffer, palette[i])
         }
     }
 
@@ -0,0 +1,101 @@
+package com.project.lumina.client.game.world.chunk.palette
+
+/**
+ * Block runtime IDs of a storage layer in palette order, with an open addressing hash from ID to palette index.
+ * IDs appearing more than once resolve to their first index.
+ */
+class IntPalette(initialCapacity: Int = 16) {
+
+    private var entries = IntArray(initialCapacity.coerceAtLeast(1))
+
+    // Palette index + 1 per slot, 0 marks an empty slot
+    private var slots = IntArray(tableSizeFor(entries.size))
+    private var keys = IntArray(slots.size)
+
+    var size = 0
+        private set
+
+    operator fun get(index: Int): Int {
+        if (index !in 0 until size) throw IndexOutOfBoundsException("Palette index $index out of range 0..<$size")
+        return entries[index]
+    }
+
+    /**
+     * @return palette index of [id] or -1 if it is not in the palette
+     */
+    fun indexOf(id: Int): Int {
+        val mask = slots.size - 1
+        var slot = mix(id) and mask
+        while (true) {
+            val value = slots[slot]
+            if (value == 0) return -1
+            if (keys[slot] == id) return value - 1
+            slot = (slot + 1) and mask
+        }
+    }
+
+    /**
+     * Appends [id] without checking whether it is already present.
+     *
+     * @return palette index of the new entry
+     */
+    fun add(id: Int): Int {
+        if (size == entries.size) {
+            entries = entries.copyOf(size * 2)
+        }
+        val index = size++
+        entries[index] = id
+
+        if (size * 2 > slots.size) {
+            rehash(tableSizeFor(size))
+        } else {
+            insert(id, index)
+        }
+        return index
+    }
+
+    fun clear() {
+        size = 0
+        slots.fill(0)
+    }
+
+    fun toIntArray(): IntArray = entries.copyOf(size)
+
+    fun copy(): IntPalette {
+        val copy = IntPalette(1)
+        copy.entries = entries.copyOf()
+        copy.slots = slots.copyOf()
+        copy.keys = keys.copyOf()
+        copy.size = size
+        return copy
+    }
+
+    private fun insert(id: Int, index: Int) {
+        val mask = slots.size - 1
+        var slot = mix(id) and mask
+        while (slots[slot] != 0) {
+            if (keys[slot] == id) return
+            slot = (slot + 1) and mask
+        }
+        keys[slot] = id
+        slots[slot] = index + 1
+    }
+
+    private fun rehash(tableSize: Int) {
+        slots = IntArray(tableSize)
+        keys = IntArray(tableSize)
+        for (i in 0 until size) {
+            insert(entries[i], i)
+        }
+    }
+
+    private companion object {
+
+        fun tableSizeFor(entries: Int): Int = Integer.highestOneBit(entries.coerceAtLeast(2) * 4 - 1)
+
+        fun mix(id: Int): Int {
+            val h = id * -0x61c88647
+            return h xor (h ushr 16)
+        }
+    }
+}
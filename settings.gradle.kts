@@ -37,6 +37,7 @@ include(":app",
     ":Protocol:bedrock-connection",
     ":Protocol:common",
     ":Protocol:adventure",
+    ":Protocol:benchmarks",
     ":Network:codec-query",
     ":Network:codec-rcon",
     ":Network:transport-raknet",